@@ -1,17 +1,22 @@
 package com.univesp.library_system;
 
 import com.univesp.library_system.domain.Role;
+import com.univesp.library_system.repository.BookRepository;
 import com.univesp.library_system.repository.RoleRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@Slf4j
 @SpringBootApplication
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
 @EnableAsync
+@EnableScheduling
 public class LibrarySystemApplication {
 
 	public static void main(String[] args) {
@@ -28,4 +33,14 @@ public class LibrarySystemApplication {
 			}
 		};
 	}
+
+	@Bean
+	public CommandLineRunner ratingBackfillRunner(BookRepository bookRepository) {
+		return args -> {
+			int backfilledBooks = bookRepository.backfillRatingAggregates();
+			if (backfilledBooks > 0) {
+				log.info("Backfilled the rating aggregates of {} books", backfilledBooks);
+			}
+		};
+	}
 }
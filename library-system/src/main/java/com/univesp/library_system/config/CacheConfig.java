@@ -0,0 +1,66 @@
+package com.univesp.library_system.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.univesp.library_system.controller.response.BookResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS_CACHE = "books";
+    public static final String BOOK_ACCESS_CACHE = "bookAccess";
+
+    private static final int OBJECT_OVERHEAD = 64;
+
+    @Value("${application.cache.books.max-weight:16777216}")
+    private long booksMaxWeight;
+    @Value("${application.cache.books.expire-after-write:10m}")
+    private Duration booksExpireAfterWrite;
+    @Value("${application.cache.book-access.max-size:100000}")
+    private long bookAccessMaxSize;
+    @Value("${application.cache.book-access.expire-after-write:5s}")
+    private Duration bookAccessExpireAfterWrite;
+
+    // Evictions are deferred until the surrounding transaction commits, so a reader can't reload the old row in between
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(BOOKS_CACHE, Caffeine.newBuilder()
+                .maximumWeight(booksMaxWeight)
+                .weigher((Object bookId, Object book) -> weigh((BookResponse) book))
+                .expireAfterWrite(booksExpireAfterWrite)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(BOOK_ACCESS_CACHE, Caffeine.newBuilder()
+                .maximumSize(bookAccessMaxSize)
+                .expireAfterWrite(bookAccessExpireAfterWrite)
+                .recordStats()
+                .build());
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private static int weigh(BookResponse book) {
+        return OBJECT_OVERHEAD
+                + sizeOf(book.title())
+                + sizeOf(book.authorName())
+                + sizeOf(book.isbn())
+                + sizeOf(book.synopsis())
+                + sizeOf(book.ownerName())
+                + sizeOf(book.coverUrl())
+                + sizeOf(book.coverHash());
+    }
+
+    private static int sizeOf(String value) {
+        return value == null ? 0 : OBJECT_OVERHEAD + value.length() * 2;
+    }
+}
@@ -1,18 +1,49 @@
 package com.univesp.library_system.controller;
 
+import com.univesp.library_system.controller.request.BookFilterRequest;
+import com.univesp.library_system.controller.request.BookIdsRequest;
 import com.univesp.library_system.controller.request.BookRequest;
+import com.univesp.library_system.controller.response.BookBulkUpdateResponse;
+import com.univesp.library_system.controller.response.BookCoverResponse;
+import com.univesp.library_system.controller.response.BookFacetResponse;
+import com.univesp.library_system.controller.response.BookImportResponse;
+import com.univesp.library_system.controller.response.BookReservationResponse;
 import com.univesp.library_system.controller.response.BookResponse;
-import com.univesp.library_system.controller.response.BorrowedBookResponse;
+import com.univesp.library_system.controller.response.BookReturnApprovalResponse;
+import com.univesp.library_system.controller.response.BookSuggestionResponse;
+import com.univesp.library_system.controller.response.LeaderboardEntryResponse;
 import com.univesp.library_system.controller.response.PageResponse;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.ExportFormat;
+import com.univesp.library_system.handler.OperationNotPermittedException;
+import com.univesp.library_system.service.BookExportService;
+import com.univesp.library_system.service.BookImportService;
+import com.univesp.library_system.service.BookReservationService;
 import com.univesp.library_system.service.BookService;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.univesp.library_system.service.BookImportService.APPLICATION_NDJSON;
+import static com.univesp.library_system.service.BookImportService.TEXT_CSV;
 
 @RestController
 @RequestMapping("books")
@@ -21,6 +52,9 @@ import org.springframework.web.multipart.MultipartFile;
 public class BookController {
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
+    private final BookReservationService bookReservationService;
 
     @PostMapping
     public ResponseEntity<Integer> saveBook(
@@ -32,6 +66,49 @@ public class BookController {
         return ResponseEntity.ok(bookService.saveBook(bookRequest, connectedUser));
     }
 
+    @PostMapping(value = "/import", consumes = {TEXT_CSV, APPLICATION_NDJSON})
+    public ResponseEntity<BookImportResponse> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE)
+            MediaType contentType,
+            InputStream body,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookImportService.importBooks(body, contentType, connectedUser));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<BookResponse>> searchBooks(
+            @RequestParam(name = "q")
+            String query,
+            @RequestParam(name = "page", defaultValue = "0", required = false)
+            int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false)
+            int size,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookService.searchBooks(query, page, size, connectedUser));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestionResponse>> suggestBooks(
+            @RequestParam(name = "prefix")
+            String prefix,
+            @RequestParam(name = "limit", defaultValue = "10", required = false)
+            int limit
+    ) {
+        return ResponseEntity.ok(bookService.suggestBooks(prefix, limit));
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<LeaderboardEntryResponse>> findLeaderboard(
+            @RequestParam(name = "kind", defaultValue = "trending", required = false)
+            String kind,
+            @RequestParam(name = "size", defaultValue = "10", required = false)
+            int size
+    ) {
+        return ResponseEntity.ok(bookService.findLeaderboard(kind, size));
+    }
+
     @GetMapping("/{book-id}")
     public ResponseEntity<BookResponse> getBook(
             @PathVariable("book-id")
@@ -40,48 +117,168 @@ public class BookController {
         return ResponseEntity.ok(bookService.findById(bookId));
     }
 
+    @GetMapping("/{book-id}/cover")
+    public ResponseEntity<Resource> findBookCover(
+            @PathVariable("book-id")
+            Integer bookId
+    ) {
+        BookCoverResponse cover = bookService.findBookCover(bookId);
+        return ResponseEntity.ok()
+                .contentType(cover.contentType())
+                .contentLength(cover.contentLength())
+                .eTag(cover.contentHash())
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate())
+                .body(cover.resource());
+    }
+
     @GetMapping
-    public ResponseEntity<PageResponse<BookResponse>> findAllBooks(
+    public ResponseEntity<?> findAllBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false)
             int page,
             @RequestParam(name = "size", defaultValue = "10", required = false)
             int size,
+            @RequestParam(name = "withTotal", defaultValue = "true", required = false)
+            boolean withTotal,
+            @RequestParam(name = "approximateTotal", defaultValue = "false", required = false)
+            boolean approximateTotal,
+            @RequestParam(name = "after", required = false)
+            String after,
+            @ParameterObject
+            BookFilterRequest filter,
+            Authentication connectedUser,
+            WebRequest webRequest
+    ) {
+        requireSingleListing(after != null, !withTotal);
+        if (after != null) {
+            return ResponseEntity.ok(bookService.findAllBooksAfter(after, size, filter, connectedUser));
+        }
+        if (!withTotal) {
+            return ResponseEntity.ok(bookService.findAllBooksSlice(page, size, filter, approximateTotal, connectedUser));
+        }
+        if (!filter.isEmpty()) {
+            return ResponseEntity.ok(bookService.findAllBooks(page, size, filter, connectedUser));
+        }
+        return conditional(webRequest, bookService.findAllBooksETag(page, size, connectedUser),
+                () -> bookService.findAllBooks(page, size, filter, connectedUser));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacetResponse> findBookFacets(
+            @ParameterObject
+            BookFilterRequest filter,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllBooks(page, size, connectedUser));
+        return ResponseEntity.ok(bookService.findBookFacets(filter, connectedUser));
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<PageResponse<BookResponse>> findAllBooksByOwner(
+    public ResponseEntity<?> findAllBooksByOwner(
             @RequestParam(name = "page", defaultValue = "0", required = false)
             int page,
             @RequestParam(name = "size", defaultValue = "10", required = false)
             int size,
+            @RequestParam(name = "withTotal", defaultValue = "true", required = false)
+            boolean withTotal,
+            @RequestParam(name = "approximateTotal", defaultValue = "false", required = false)
+            boolean approximateTotal,
+            @RequestParam(name = "after", required = false)
+            String after,
+            Authentication connectedUser,
+            WebRequest webRequest
+    ) {
+        requireSingleListing(after != null, !withTotal);
+        if (after != null) {
+            return ResponseEntity.ok(bookService.findAllBooksByOwnerAfter(after, size, connectedUser));
+        }
+        if (!withTotal) {
+            return ResponseEntity.ok(bookService.findAllBooksByOwnerSlice(page, size, approximateTotal, connectedUser));
+        }
+        return conditional(webRequest, bookService.findAllBooksByOwnerETag(page, size, connectedUser),
+                () -> bookService.findAllBooksByOwner(page, size, connectedUser));
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBooksByOwner(
+            @RequestParam(name = "format", defaultValue = "NDJSON", required = false)
+            ExportFormat format,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllBooksByOwner(page, size, connectedUser));
+        User user = ((User) connectedUser.getPrincipal());
+        return toExportResponse(format, "books",
+                outputStream -> bookExportService.exportBooksByOwner(user.getId(), format, outputStream));
     }
 
     @GetMapping("/borrowed")
-    public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllBorrowedBooks(
+    public ResponseEntity<?> findAllBorrowedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false)
             int page,
             @RequestParam(name = "size", defaultValue = "10", required = false)
             int size,
-            Authentication connectedUser
+            @RequestParam(name = "withTotal", defaultValue = "true", required = false)
+            boolean withTotal,
+            @RequestParam(name = "approximateTotal", defaultValue = "false", required = false)
+            boolean approximateTotal,
+            @RequestParam(name = "after", required = false)
+            String after,
+            @RequestParam(name = "includeArchive", defaultValue = "false", required = false)
+            boolean includeArchive,
+            Authentication connectedUser,
+            WebRequest webRequest
     ) {
-        return ResponseEntity.ok(bookService.findAllBorrowedBooks(page, size, connectedUser));
+        requireSingleListing(after != null, !withTotal, includeArchive);
+        if (after != null) {
+            return ResponseEntity.ok(bookService.findAllBorrowedBooksAfter(after, size, connectedUser));
+        }
+        if (!withTotal) {
+            return ResponseEntity.ok(bookService.findAllBorrowedBooksSlice(page, size, approximateTotal, connectedUser));
+        }
+        if (includeArchive) {
+            return ResponseEntity.ok(bookService.findAllBorrowedBooksWithArchive(page, size, connectedUser));
+        }
+        return conditional(webRequest, bookService.findAllBorrowedBooksETag(page, size, connectedUser),
+                () -> bookService.findAllBorrowedBooks(page, size, connectedUser));
     }
 
     @GetMapping("/returned")
-    public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllReturnedBooks(
+    public ResponseEntity<?> findAllReturnedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false)
             int page,
             @RequestParam(name = "size", defaultValue = "10", required = false)
             int size,
+            @RequestParam(name = "withTotal", defaultValue = "true", required = false)
+            boolean withTotal,
+            @RequestParam(name = "approximateTotal", defaultValue = "false", required = false)
+            boolean approximateTotal,
+            @RequestParam(name = "after", required = false)
+            String after,
+            @RequestParam(name = "includeArchive", defaultValue = "false", required = false)
+            boolean includeArchive,
+            Authentication connectedUser,
+            WebRequest webRequest
+    ) {
+        requireSingleListing(after != null, !withTotal, includeArchive);
+        if (after != null) {
+            return ResponseEntity.ok(bookService.findAllReturnedBooksAfter(after, size, connectedUser));
+        }
+        if (!withTotal) {
+            return ResponseEntity.ok(bookService.findAllReturnedBooksSlice(page, size, approximateTotal, connectedUser));
+        }
+        if (includeArchive) {
+            return ResponseEntity.ok(bookService.findAllReturnedBooksWithArchive(page, size, connectedUser));
+        }
+        return conditional(webRequest, bookService.findAllReturnedBooksETag(page, size, connectedUser),
+                () -> bookService.findAllReturnedBooks(page, size, connectedUser));
+    }
+
+    @GetMapping("/returned/export")
+    public ResponseEntity<StreamingResponseBody> exportReturnedBooks(
+            @RequestParam(name = "format", defaultValue = "NDJSON", required = false)
+            ExportFormat format,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllReturnedBooks(page, size, connectedUser));
+        User user = ((User) connectedUser.getPrincipal());
+        return toExportResponse(format, "returned-books",
+                outputStream -> bookExportService.exportReturnedBooks(user.getId(), format, outputStream));
     }
 
     @PatchMapping("/shareable/{book-id}")
@@ -95,6 +292,30 @@ public class BookController {
         return ResponseEntity.ok(bookService.updateShareableStatus(bookId, shareable, connectedUser));
     }
 
+    @PatchMapping("/shareable")
+    public ResponseEntity<BookBulkUpdateResponse> bulkUpdateShareableStatus(
+            @Valid
+            @RequestBody
+            BookIdsRequest bookIdsRequest,
+            @RequestParam(name = "shareable")
+            boolean shareable,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookService.bulkUpdateShareableStatus(bookIdsRequest, shareable, connectedUser));
+    }
+
+    @PatchMapping("/archived")
+    public ResponseEntity<BookBulkUpdateResponse> bulkUpdateArchivedStatus(
+            @Valid
+            @RequestBody
+            BookIdsRequest bookIdsRequest,
+            @RequestParam(name = "archived")
+            boolean archived,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookService.bulkUpdateArchivedStatus(bookIdsRequest, archived, connectedUser));
+    }
+
     @PatchMapping("/archived/{book-id}")
     public ResponseEntity<Integer> updateArchivedStatus(
             @PathVariable("book-id")
@@ -115,6 +336,24 @@ public class BookController {
         return ResponseEntity.ok(bookService.borrowBook(bookId, connectedUser));
     }
 
+    @PostMapping("/reserve/{book-id}")
+    public ResponseEntity<BookReservationResponse> reserveBook(
+            @PathVariable("book-id")
+            Integer bookId,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookReservationService.reserveBook(bookId, connectedUser));
+    }
+
+    @GetMapping("/reserve/{book-id}")
+    public ResponseEntity<BookReservationResponse> findReservation(
+            @PathVariable("book-id")
+            Integer bookId,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookReservationService.findReservation(bookId, connectedUser));
+    }
+
     @PatchMapping("/borrow/return/{book-id}")
     public ResponseEntity<Integer> returnBorrowedBook(
             @PathVariable("book-id")
@@ -133,6 +372,23 @@ public class BookController {
         return ResponseEntity.ok(bookService.approveReturnBorrowedBook(bookId, connectedUser));
     }
 
+    @PatchMapping("/borrow/return/approve")
+    public ResponseEntity<BookReturnApprovalResponse> bulkApproveReturnBorrow(
+            @Valid
+            @RequestBody
+            BookIdsRequest bookIdsRequest,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookService.bulkApproveReturnBorrowedBooks(bookIdsRequest, connectedUser));
+    }
+
+    @PatchMapping(value = "/borrow/return/approve", params = "all=true")
+    public ResponseEntity<BookReturnApprovalResponse> approveAllReturnBorrow(
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookService.approveAllReturnBorrowedBooks(connectedUser));
+    }
+
     @PostMapping(value = "/cover/{book-id}", consumes = "multipart/form-data")
     public ResponseEntity<?> uploadBookCoverPicture(
             @PathVariable("book-id")
@@ -145,4 +401,35 @@ public class BookController {
         bookService.uploadBookCoverPicture(bookId, file, connectedUser);
         return ResponseEntity.accepted().build();
     }
+
+    private static ResponseEntity<StreamingResponseBody> toExportResponse(ExportFormat format, String fileName, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    private static void requireSingleListing(boolean... selected) {
+        int count = 0;
+        for (boolean listing : selected) {
+            count += listing ? 1 : 0;
+        }
+        if (count > 1) {
+            throw new OperationNotPermittedException("after, withTotal=false and includeArchive=true cannot be combined");
+        }
+    }
+
+    // Returning null after checkNotModified sends the 304 without building the page
+    private static <T> ResponseEntity<T> conditional(WebRequest webRequest, String eTag, Supplier<T> body) {
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body.get());
+    }
 }
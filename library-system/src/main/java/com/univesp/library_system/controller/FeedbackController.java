@@ -1,15 +1,17 @@
 package com.univesp.library_system.controller;
 
 import com.univesp.library_system.controller.request.FeedbackRequest;
-import com.univesp.library_system.controller.response.FeedbackResponse;
-import com.univesp.library_system.controller.response.PageResponse;
+import com.univesp.library_system.controller.response.FeedbackSummaryResponse;
+import com.univesp.library_system.handler.OperationNotPermittedException;
 import com.univesp.library_system.service.FeedbackService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("feedbacks")
@@ -24,16 +26,44 @@ public class FeedbackController {
             @Valid @RequestBody FeedbackRequest feedbackRequest,
             Authentication authentication
     ) {
-        return ResponseEntity.ok(feedbackService.saveFeedback(feedbackRequest, authentication));
+        Integer feedbackId = feedbackService.saveFeedback(feedbackRequest, authentication);
+        return feedbackId == null ? ResponseEntity.accepted().build() : ResponseEntity.ok(feedbackId);
     }
 
     @GetMapping("/book/{book-id}")
-    public ResponseEntity<PageResponse<FeedbackResponse>> findAllFeedbacksByBook(
+    public ResponseEntity<?> findAllFeedbacksByBook(
             @PathVariable("book-id") Integer bookId,
             @RequestParam(name = "page", defaultValue = "0", required = false) Integer page,
             @RequestParam(name = "size", defaultValue = "10", required = false) Integer size,
-            Authentication authentication
+            @RequestParam(name = "withTotal", defaultValue = "true", required = false) boolean withTotal,
+            @RequestParam(name = "approximateTotal", defaultValue = "false", required = false) boolean approximateTotal,
+            @RequestParam(name = "after", required = false) String after,
+            Authentication authentication,
+            WebRequest webRequest
+    ) {
+        if (after != null && !withTotal) {
+            throw new OperationNotPermittedException("after and withTotal=false cannot be combined");
+        }
+        if (after != null) {
+            return ResponseEntity.ok(feedbackService.findAllFeedbacksByBookAfter(bookId, after, size, authentication));
+        }
+        if (!withTotal) {
+            return ResponseEntity.ok(feedbackService.findAllFeedbacksByBookSlice(bookId, page, size, approximateTotal, authentication));
+        }
+        String eTag = feedbackService.findAllFeedbacksByBookETag(bookId, page, size, authentication);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(feedbackService.findAllFeedbacksByBook(bookId, page, size, authentication));
+    }
+
+    @GetMapping("/book/{book-id}/summary")
+    public ResponseEntity<FeedbackSummaryResponse> findFeedbackSummary(
+            @PathVariable("book-id") Integer bookId
     ) {
-        return ResponseEntity.ok(feedbackService.findAllFeedbacksByBook(bookId, page, size, authentication));
+        return ResponseEntity.ok(feedbackService.findFeedbackSummary(bookId));
     }
 }
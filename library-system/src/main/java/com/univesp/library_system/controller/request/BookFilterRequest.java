@@ -0,0 +1,26 @@
+package com.univesp.library_system.controller.request;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+public record BookFilterRequest(
+        String author,
+        String isbnPrefix,
+        Double minRate,
+        Boolean available,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate createdFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate createdTo
+) {
+
+    public boolean isEmpty() {
+        return author == null
+                && isbnPrefix == null
+                && minRate == null
+                && available == null
+                && createdFrom == null
+                && createdTo == null;
+    }
+}
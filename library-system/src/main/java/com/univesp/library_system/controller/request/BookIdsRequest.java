@@ -0,0 +1,15 @@
+package com.univesp.library_system.controller.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BookIdsRequest(
+        @NotNull(message = "104")
+        @NotEmpty(message = "104")
+        @Size(max = 1000, message = "105")
+        List<@NotNull(message = "104") Integer> bookIds
+) {
+}
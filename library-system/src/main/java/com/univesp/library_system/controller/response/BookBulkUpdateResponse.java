@@ -0,0 +1,12 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record BookBulkUpdateResponse(
+        List<Integer> applied,
+        List<Integer> rejected
+) {
+}
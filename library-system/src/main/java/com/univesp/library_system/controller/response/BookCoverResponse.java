@@ -0,0 +1,14 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.Builder;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+@Builder
+public record BookCoverResponse(
+        Resource resource,
+        MediaType contentType,
+        long contentLength,
+        String contentHash
+) {
+}
@@ -0,0 +1,13 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.Builder;
+
+import java.util.Map;
+
+@Builder
+public record BookFacetResponse(
+        long totalElements,
+        Map<String, Long> authors,
+        Map<String, Long> ratingBands
+) {
+}
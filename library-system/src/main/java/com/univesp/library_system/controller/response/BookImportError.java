@@ -0,0 +1,9 @@
+package com.univesp.library_system.controller.response;
+
+import java.util.List;
+
+public record BookImportError(
+        long line,
+        List<String> errors
+) {
+}
@@ -0,0 +1,17 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record BookImportResponse(
+        long totalRows,
+        long importedRows,
+        long rejectedRows,
+        boolean completed,
+        List<BookImportError> errors,
+        long elapsedMillis,
+        double rowsPerSecond
+) {
+}
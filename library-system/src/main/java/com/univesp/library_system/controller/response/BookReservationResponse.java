@@ -0,0 +1,10 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.Builder;
+
+@Builder
+public record BookReservationResponse(
+        Integer bookId,
+        long position
+) {
+}
@@ -1,5 +1,6 @@
 package com.univesp.library_system.controller.response;
 
+import com.univesp.library_system.enums.LoanState;
 import lombok.Builder;
 
 @Builder
@@ -10,9 +11,11 @@ public record BookResponse(
         String isbn,
         String synopsis,
         String ownerName,
-        byte[] cover,
+        String coverUrl,
+        String coverHash,
         double rate,
         boolean archived,
-        boolean shareable
+        boolean shareable,
+        LoanState loanState
 ) {
 }
@@ -0,0 +1,13 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record BookReturnApprovalResponse(
+        List<Integer> approved,
+        List<Integer> handedOff,
+        List<Integer> rejected
+) {
+}
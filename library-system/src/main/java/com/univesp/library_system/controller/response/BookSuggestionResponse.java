@@ -0,0 +1,13 @@
+package com.univesp.library_system.controller.response;
+
+import com.univesp.library_system.enums.SuggestionType;
+import lombok.Builder;
+
+@Builder
+public record BookSuggestionResponse(
+        String text,
+        SuggestionType type,
+        Integer bookId,
+        long popularity
+) {
+}
@@ -2,6 +2,8 @@ package com.univesp.library_system.controller.response;
 
 import lombok.Builder;
 
+import java.time.LocalDateTime;
+
 @Builder
 public record BorrowedBookResponse(
     Integer id,
@@ -10,6 +12,8 @@ public record BorrowedBookResponse(
     String isbn,
     double rate,
     boolean returned,
-    boolean returnApproved
+    boolean returnApproved,
+    LocalDateTime dueDate,
+    boolean overdue
     ) {
 }
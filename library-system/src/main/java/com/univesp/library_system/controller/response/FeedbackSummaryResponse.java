@@ -0,0 +1,14 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.Builder;
+
+import java.util.Map;
+
+@Builder
+public record FeedbackSummaryResponse(
+        Integer bookId,
+        int feedbackCount,
+        double rate,
+        Map<String, Integer> ratingBands
+) {
+}
@@ -0,0 +1,11 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.Builder;
+
+@Builder
+public record LeaderboardEntryResponse(
+        int rank,
+        Integer bookId,
+        double score
+) {
+}
@@ -0,0 +1,22 @@
+package com.univesp.library_system.controller.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SliceResponse<T> {
+
+    private List<T> content;
+    private int number;
+    private int size;
+    private boolean first;
+    private boolean hasNext;
+    private Long approximateTotalElements;
+}
@@ -0,0 +1,50 @@
+package com.univesp.library_system.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "book_transaction_history_archive")
+public class ArchivedBookTransactionHistory {
+
+    @Id
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    private boolean returned;
+    private boolean returnApproved;
+    private LocalDateTime dueDate;
+    private boolean overdue;
+
+    @Column(nullable = false)
+    private LocalDateTime createdDate;
+    private LocalDateTime lastModifiedDate;
+    @Column(nullable = false)
+    private Integer createdBy;
+    private Integer lastModifiedBy;
+    @Column(columnDefinition = "integer default 0")
+    private Integer version;
+}
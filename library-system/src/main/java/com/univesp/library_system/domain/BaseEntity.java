@@ -22,7 +22,7 @@ import java.time.LocalDateTime;
 public class BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Integer id;
 
     @CreatedDate
@@ -37,4 +37,7 @@ public class BaseEntity {
     @LastModifiedBy
     @Column(insertable = false)
     private Integer lastModifiedBy;
+    @Version
+    @Column(columnDefinition = "integer default 0")
+    private Integer version;
 }
@@ -1,12 +1,19 @@
 package com.univesp.library_system.domain;
 
+import com.univesp.library_system.enums.LoanState;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
 import java.util.List;
 
+// idx_book_displayable is partial, so it is only declared in V8__repository_indexes.sql
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_owner_created_date", columnList = "owner_id, created_date"),
+        @Index(name = "idx_book_author_name", columnList = "author_name"),
+        @Index(name = "idx_book_isbn", columnList = "isbn")
+})
 @Getter
 @Setter
 @SuperBuilder
@@ -19,8 +26,20 @@ public class Book extends BaseEntity {
     private String isbn;
     private String synopsis;
     private String bookCover;
+    private String bookCoverHash;
     private boolean archived;
     private boolean shareable;
+    private Double ratingSum;
+    private Integer ratingCount;
+    private int ratingBand0;
+    private int ratingBand1;
+    private int ratingBand2;
+    private int ratingBand3;
+    private int ratingBand4;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    @Builder.Default
+    private LoanState loanState = LoanState.AVAILABLE;
     @ManyToOne
     @JoinColumn(name = "owner_id")
     private User owner;
@@ -32,14 +51,19 @@ public class Book extends BaseEntity {
 
     @Transient
     public double getRate() {
-        if (feedbacks == null || feedbacks.isEmpty()) {
+        return computeRate(ratingSum, ratingCount);
+    }
+
+    public static double computeRate(Double ratingSum, Integer ratingCount) {
+        if (ratingSum == null || ratingCount == null || ratingCount == 0) {
             return 0.0;
         }
-        var rate = this.feedbacks.stream()
-                .mapToDouble(Feedback::getNote)
-                .average()
-                .orElse(0.0);
+        var rate = ratingSum / ratingCount;
         return Math.round(rate * 10.0) / 10.0;
     }
+
+    public static int ratingBand(double note) {
+        return Math.min(4, Math.max(0, (int) Math.floor(note)));
+    }
 }
 
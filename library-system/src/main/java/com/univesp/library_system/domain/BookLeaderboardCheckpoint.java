@@ -0,0 +1,61 @@
+package com.univesp.library_system.domain;
+
+import com.univesp.library_system.enums.LeaderboardKind;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Trending scores are decayed up to checkpointDate, restore decays them further from there
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(BookLeaderboardCheckpoint.Key.class)
+@Table(name = "book_leaderboard_checkpoint")
+public class BookLeaderboardCheckpoint implements Persistable<BookLeaderboardCheckpoint.Key> {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private LeaderboardKind kind;
+    @Id
+    private Integer bookId;
+
+    private double score;
+    private double error;
+    @Column(nullable = false)
+    private LocalDateTime checkpointDate;
+
+    @Override
+    public Key getId() {
+        return new Key(kind, bookId);
+    }
+
+    // Rows are only written after their kind was cleared, so saveAll persists them without looking them up first
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LeaderboardKind kind;
+        private Integer bookId;
+    }
+}
@@ -1,11 +1,79 @@
 package com.univesp.library_system.domain;
 
+import com.univesp.library_system.enums.LoanState;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 public class BookSpecification {
 
+    public static Specification<Book> withIds(Collection<Integer> bookIds) {
+        return (root, query, criteriaBuilder) -> root.get("id").in(bookIds);
+    }
+
     public static Specification<Book> withOwnerId(Integer ownerId) {
         return (root, query, criteriaBuilder) ->
                 criteriaBuilder.equal(root.get("owner").get("id"), ownerId);
     }
+
+    public static Specification<Book> displayableTo(Integer userId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.isFalse(root.get("archived")),
+                criteriaBuilder.isTrue(root.get("shareable")),
+                criteriaBuilder.notEqual(root.get("owner").get("id"), userId)
+        );
+    }
+
+    public static Specification<Book> withAuthorName(String authorName) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get("authorName"), authorName);
+    }
+
+    public static Specification<Book> withIsbnPrefix(String isbnPrefix) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.like(root.get("isbn"), escapeLike(isbnPrefix) + "%", '\\');
+    }
+
+    public static Specification<Book> withMinimumRate(double minRate) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.greaterThan(root.get("ratingCount"), 0),
+                criteriaBuilder.ge(
+                        root.get("ratingSum"),
+                        criteriaBuilder.prod(root.<Integer>get("ratingCount"), minRate)
+                )
+        );
+    }
+
+    public static Specification<Book> withAvailability(boolean available) {
+        return (root, query, criteriaBuilder) -> available
+                ? criteriaBuilder.equal(root.get("loanState"), LoanState.AVAILABLE)
+                : criteriaBuilder.notEqual(root.get("loanState"), LoanState.AVAILABLE);
+    }
+
+    public static Specification<Book> createdFrom(LocalDateTime from) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.greaterThanOrEqualTo(root.get("createdDate"), from);
+    }
+
+    public static Specification<Book> createdBefore(LocalDateTime to) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.lessThan(root.get("createdDate"), to);
+    }
+
+    public static Specification<Book> after(LocalDateTime createdDate, Integer id) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.lessThan(root.get("createdDate"), createdDate),
+                criteriaBuilder.and(
+                        criteriaBuilder.equal(root.get("createdDate"), createdDate),
+                        criteriaBuilder.lessThan(root.get("id"), id)
+                )
+        );
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
 }
@@ -1,20 +1,28 @@
 package com.univesp.library_system.domain;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @SuperBuilder
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_transaction_history_user", columnList = "user_id, created_date DESC, id DESC"),
+        @Index(name = "idx_book_transaction_history_book", columnList = "book_id, created_date DESC, id DESC")
+})
 public class BookTransactionHistory extends BaseEntity {
 
     @ManyToOne
@@ -26,4 +34,6 @@ public class BookTransactionHistory extends BaseEntity {
 
     private boolean returned;
     private boolean returnApproved;
+    private LocalDateTime dueDate;
+    private boolean overdue;
 }
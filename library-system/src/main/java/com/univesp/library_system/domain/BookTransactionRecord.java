@@ -0,0 +1,45 @@
+package com.univesp.library_system.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.time.LocalDateTime;
+
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+@Subselect("""
+        SELECT id, created_date, user_id, book_id, returned, return_approved, due_date, overdue
+        FROM book_transaction_history
+        UNION ALL
+        SELECT id, created_date, user_id, book_id, returned, return_approved, due_date, overdue
+        FROM book_transaction_history_archive
+        """)
+@Synchronize({"book_transaction_history", "book_transaction_history_archive"})
+public class BookTransactionRecord {
+
+    @Id
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    private boolean returned;
+    private boolean returnApproved;
+    private LocalDateTime dueDate;
+    private boolean overdue;
+    private LocalDateTime createdDate;
+}
@@ -8,6 +8,7 @@ import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
 @Entity
+@Table(indexes = @Index(name = "idx_feedback_book_created_date", columnList = "book_id, created_date DESC, id DESC"))
 @Getter
 @Setter
 @SuperBuilder
@@ -0,0 +1,36 @@
+package com.univesp.library_system.domain;
+
+import com.univesp.library_system.enums.LoanEventType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@SuperBuilder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class LoanOutboxEvent extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private LoanEventType type;
+    @Column(nullable = false)
+    private Integer historyId;
+    @Column(nullable = false)
+    private Integer bookId;
+    @Column(nullable = false)
+    private Integer userId;
+
+    private LocalDateTime dispatchedDate;
+    private int attempts;
+}
@@ -13,6 +13,9 @@ public enum BusinessErrorCodes {
     INCORRECT_CURRENT_PASSWORD(300, BAD_REQUEST, "Incorrect current password"),
     ACCOUNT_DISABLED(303, FORBIDDEN, "Account disabled"),
     BAD_CREDENTIALS(304, UNAUTHORIZED, "Bad credentials"),
+    BOOK_ALREADY_BORROWED(305, CONFLICT, "Book already borrowed"),
+    CONCURRENT_MODIFICATION(306, CONFLICT, "Changed by another request, try again"),
+    FEEDBACK_QUEUE_FULL(307, SERVICE_UNAVAILABLE, "Too many feedbacks right now, try again shortly"),
     ;
 
     @Getter
@@ -4,7 +4,9 @@ import lombok.Getter;
 
 public enum EmailTemplateName {
 
-    ACTIVATION_ACCOUNT("activation_account");
+    ACTIVATION_ACCOUNT("activation_account"),
+    BOOK_RESERVATION_READY("book_reservation_ready"),
+    LOAN_OVERDUE("loan_overdue");
 
     @Getter
     private final String templateName;
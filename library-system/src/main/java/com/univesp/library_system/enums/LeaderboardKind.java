@@ -0,0 +1,26 @@
+package com.univesp.library_system.enums;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+@Getter
+public enum LeaderboardKind {
+
+    TRENDING("trending"),
+    TOP_RATED("top-rated"),
+    ;
+
+    private final String value;
+
+    LeaderboardKind(String value) {
+        this.value = value;
+    }
+
+    public static Optional<LeaderboardKind> fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(kind -> kind.value.equalsIgnoreCase(value))
+                .findFirst();
+    }
+}
@@ -0,0 +1,7 @@
+package com.univesp.library_system.enums;
+
+public enum LoanEventType {
+    BORROWED,
+    RETURNED,
+    RETURN_APPROVED
+}
@@ -0,0 +1,7 @@
+package com.univesp.library_system.enums;
+
+public enum LoanState {
+    AVAILABLE,
+    ON_LOAN,
+    RETURN_PENDING
+}
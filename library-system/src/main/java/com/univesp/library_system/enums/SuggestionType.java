@@ -0,0 +1,6 @@
+package com.univesp.library_system.enums;
+
+public enum SuggestionType {
+    TITLE,
+    AUTHOR
+}
@@ -0,0 +1,7 @@
+package com.univesp.library_system.handler;
+
+public class BookAlreadyBorrowedException extends RuntimeException {
+    public BookAlreadyBorrowedException(String message) {
+        super(message);
+    }
+}
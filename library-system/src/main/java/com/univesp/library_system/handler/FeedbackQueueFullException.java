@@ -0,0 +1,7 @@
+package com.univesp.library_system.handler;
+
+public class FeedbackQueueFullException extends RuntimeException {
+    public FeedbackQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -2,6 +2,8 @@ package com.univesp.library_system.handler;
 
 import com.univesp.library_system.controller.response.ExceptionResponse;
 import jakarta.mail.MessagingException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
@@ -58,6 +60,46 @@ public class GlobalExceptionHandler {
                 );
     }
 
+    @ExceptionHandler(BookAlreadyBorrowedException.class)
+    public ResponseEntity<ExceptionResponse> handleException(BookAlreadyBorrowedException exception) {
+        return ResponseEntity
+                .status(CONFLICT)
+                .body(
+                        ExceptionResponse.builder()
+                                .businessErrorCode(BOOK_ALREADY_BORROWED.getCode())
+                                .businessErrorDescription(BOOK_ALREADY_BORROWED.getDescription())
+                                .error(exception.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ExceptionResponse> handleException(OptimisticLockingFailureException exception) {
+        return ResponseEntity
+                .status(CONFLICT)
+                .body(
+                        ExceptionResponse.builder()
+                                .businessErrorCode(CONCURRENT_MODIFICATION.getCode())
+                                .businessErrorDescription(CONCURRENT_MODIFICATION.getDescription())
+                                .error(exception.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(FeedbackQueueFullException.class)
+    public ResponseEntity<ExceptionResponse> handleException(FeedbackQueueFullException exception) {
+        return ResponseEntity
+                .status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(
+                        ExceptionResponse.builder()
+                                .businessErrorCode(FEEDBACK_QUEUE_FULL.getCode())
+                                .businessErrorDescription(FEEDBACK_QUEUE_FULL.getDescription())
+                                .error(exception.getMessage())
+                                .build()
+                );
+    }
+
     @ExceptionHandler(MessagingException.class)
     public ResponseEntity<ExceptionResponse> handleException(MessagingException exception) {
         return ResponseEntity
@@ -0,0 +1,73 @@
+package com.univesp.library_system.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class ApproximateCountRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public Long countDisplayableBooks(Integer userId) {
+        return estimate("""
+                SELECT 1
+                FROM book
+                WHERE archived = false
+                AND shareable = true
+                AND owner_id <> ?
+                """, userId);
+    }
+
+    public Long countBooksByOwner(Integer ownerId) {
+        return estimate("""
+                SELECT 1
+                FROM book
+                WHERE owner_id = ?
+                """, ownerId);
+    }
+
+    public Long countBorrowedBooks(Integer userId) {
+        return estimate("""
+                SELECT 1
+                FROM book_transaction_history
+                WHERE user_id = ?
+                """, userId);
+    }
+
+    public Long countReturnedBooks(Integer ownerId) {
+        return estimate("""
+                SELECT 1
+                FROM book_transaction_history history
+                JOIN book ON book.id = history.book_id
+                WHERE book.owner_id = ?
+                """, ownerId);
+    }
+
+    public Long countFeedbacksByBook(Integer bookId) {
+        return estimate("""
+                SELECT 1
+                FROM feedback
+                WHERE book_id = ?
+                """, bookId);
+    }
+
+    private Long estimate(String query, Object... args) {
+        try {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + query, String.class, args);
+            JsonNode planRows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return planRows.isMissingNode() ? null : planRows.asLong();
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Could not estimate the row count: {}", e.getMessage());
+            return null;
+        }
+    }
+}
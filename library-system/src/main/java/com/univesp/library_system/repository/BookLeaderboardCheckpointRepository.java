@@ -0,0 +1,30 @@
+package com.univesp.library_system.repository;
+
+import com.univesp.library_system.domain.BookLeaderboardCheckpoint;
+import com.univesp.library_system.enums.LeaderboardKind;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface BookLeaderboardCheckpointRepository
+        extends JpaRepository<BookLeaderboardCheckpoint, BookLeaderboardCheckpoint.Key> {
+
+    @Query("""
+            SELECT checkpoint
+            FROM BookLeaderboardCheckpoint checkpoint, Book book
+            WHERE book.id = checkpoint.bookId
+            AND checkpoint.kind = :kind
+            AND book.archived = false
+            AND book.shareable = true
+            """)
+    List<BookLeaderboardCheckpoint> findDisplayableByKind(LeaderboardKind kind);
+
+    @Modifying
+    @Query("""
+            DELETE FROM BookLeaderboardCheckpoint checkpoint
+            WHERE checkpoint.kind = :kind
+            """)
+    int deleteByKind(LeaderboardKind kind);
+}
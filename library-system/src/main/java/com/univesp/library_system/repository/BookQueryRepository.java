@@ -0,0 +1,26 @@
+package com.univesp.library_system.repository;
+
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.repository.projection.BookFacetCount;
+import com.univesp.library_system.repository.projection.BookSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookQueryRepository {
+
+    Page<BookSummary> findAllSummaries(Specification<Book> specification, Pageable pageable);
+
+    List<BookSummary> findSummaries(Specification<Book> specification, Pageable pageable);
+
+    Slice<BookSummary> findSummariesSlice(Specification<Book> specification, Pageable pageable);
+
+    Stream<BookSummary> streamSummaries(Specification<Book> specification, Sort sort);
+
+    List<BookFacetCount> countFacets(Specification<Book> specification);
+}
@@ -0,0 +1,134 @@
+package com.univesp.library_system.repository;
+
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.repository.projection.BookFacetCount;
+import com.univesp.library_system.repository.projection.BookSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.univesp.library_system.repository.BookRepository.EXPORT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+class BookQueryRepositoryImpl implements BookQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<BookSummary> findAllSummaries(Specification<Book> specification, Pageable pageable) {
+        List<BookSummary> content = createSummaryQuery(specification, pageable.getSort())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    @Override
+    public List<BookSummary> findSummaries(Specification<Book> specification, Pageable pageable) {
+        TypedQuery<BookSummary> query = createSummaryQuery(specification, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Slice<BookSummary> findSummariesSlice(Specification<Book> specification, Pageable pageable) {
+        List<BookSummary> content = createSummaryQuery(specification, pageable.getSort())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public Stream<BookSummary> streamSummaries(Specification<Book> specification, Sort sort) {
+        return createSummaryQuery(specification, sort)
+                .setHint(HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private TypedQuery<BookSummary> createSummaryQuery(Specification<Book> specification, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookSummary> query = criteriaBuilder.createQuery(BookSummary.class);
+        Root<Book> book = query.from(Book.class);
+        Join<Book, User> owner = book.join("owner");
+        query.select(criteriaBuilder.construct(
+                BookSummary.class,
+                book.get("id"),
+                book.get("title"),
+                book.get("authorName"),
+                book.get("isbn"),
+                book.get("synopsis"),
+                criteriaBuilder.concat(
+                        criteriaBuilder.concat(owner.<String>get("firstName"), " "),
+                        owner.<String>get("lastName")
+                ),
+                book.get("bookCover"),
+                book.get("bookCoverHash"),
+                book.get("ratingSum"),
+                book.get("ratingCount"),
+                book.get("archived"),
+                book.get("shareable"),
+                book.get("loanState"),
+                book.get("createdDate")
+        ));
+        query.where(specification.toPredicate(book, query, criteriaBuilder));
+        query.orderBy(QueryUtils.toOrders(sort, book, criteriaBuilder));
+        return entityManager.createQuery(query);
+    }
+
+    @Override
+    public List<BookFacetCount> countFacets(Specification<Book> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookFacetCount> query = criteriaBuilder.createQuery(BookFacetCount.class);
+        Root<Book> book = query.from(Book.class);
+        Expression<String> authorName = book.get("authorName");
+        Expression<Integer> ratingBand = ratingBand(book, criteriaBuilder);
+        query.select(criteriaBuilder.construct(BookFacetCount.class, authorName, ratingBand, criteriaBuilder.count(book)))
+                .where(specification.toPredicate(book, query, criteriaBuilder))
+                .groupBy(authorName, ratingBand);
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private long count(Specification<Book> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(criteriaBuilder.count(book))
+                .where(specification.toPredicate(book, query, criteriaBuilder));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Expression<Integer> ratingBand(Root<Book> book, CriteriaBuilder criteriaBuilder) {
+        Expression<Double> ratingSum = book.get("ratingSum");
+        Expression<Integer> ratingCount = book.get("ratingCount");
+        CriteriaBuilder.Case<Integer> band = criteriaBuilder.selectCase();
+        band.when(criteriaBuilder.or(criteriaBuilder.isNull(ratingCount), criteriaBuilder.equal(ratingCount, 0)),
+                criteriaBuilder.nullLiteral(Integer.class));
+        for (int lowerBound = 4; lowerBound > 0; lowerBound--) {
+            band.when(criteriaBuilder.ge(ratingSum, criteriaBuilder.prod(ratingCount, lowerBound)), lowerBound);
+        }
+        return band.otherwise(0);
+    }
+}
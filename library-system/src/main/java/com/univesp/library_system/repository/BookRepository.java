@@ -1,20 +1,253 @@
 package com.univesp.library_system.repository;
 
 import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.enums.LoanState;
+import com.univesp.library_system.repository.projection.BookAccess;
+import com.univesp.library_system.repository.projection.BookLoanStamp;
+import com.univesp.library_system.repository.projection.BookSearchDocument;
+import com.univesp.library_system.repository.projection.BookStatusSummary;
+import com.univesp.library_system.repository.projection.RatingSummary;
+import com.univesp.library_system.repository.projection.VersionStamp;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book>, BookQueryRepository {
+
+    String EXPORT_FETCH_SIZE = "500";
+
+    @Query(value = """
+            SELECT new com.univesp.library_system.repository.projection.VersionStamp(book.id, book.version)
+            FROM Book book
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND book.owner.id != :userId
+            """,
+            countQuery = """
+            SELECT COUNT(book)
+            FROM Book book
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND book.owner.id != :userId
+            """)
+    Page<VersionStamp> findDisplayableBookStamps(Pageable pageable, Integer userId);
+
+    @Query(value = """
+            SELECT new com.univesp.library_system.repository.projection.VersionStamp(book.id, book.version)
+            FROM Book book
+            WHERE book.owner.id = :ownerId
+            """,
+            countQuery = """
+            SELECT COUNT(book)
+            FROM Book book
+            WHERE book.owner.id = :ownerId
+            """)
+    Page<VersionStamp> findBookStampsByOwner(Pageable pageable, Integer ownerId);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.BookSearchDocument(
+                book.id, book.owner.id, book.title, book.authorName, book.isbn, book.synopsis,
+                book.archived, book.shareable
+            )
+            FROM Book book
+            WHERE book.id > :lastId
+            ORDER BY book.id
+            """)
+    List<BookSearchDocument> findSearchDocumentsAfter(Integer lastId, Pageable pageable);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.BookAccess(
+                book.id, book.owner.id, book.archived, book.shareable
+            )
+            FROM Book book
+            WHERE book.id = :bookId
+            """)
+    Optional<BookAccess> findAccessById(Integer bookId);
 
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.BookLoanStamp(book.loanState, book.version)
+            FROM Book book
+            WHERE book.id = :bookId
+            """)
+    Optional<BookLoanStamp> findLoanStampById(Integer bookId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("""
             SELECT book
             FROM Book book
+            WHERE book.id = :bookId
+            """)
+    Optional<Book> findByIdForUpdate(Integer bookId);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.BookStatusSummary(
+                book.id, book.archived, book.shareable
+            )
+            FROM Book book
+            WHERE book.id IN :bookIds
+            AND book.owner.id = :ownerId
+            """)
+    List<BookStatusSummary> findStatusesOwnedBy(Collection<Integer> bookIds, Integer ownerId);
+
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.shareable = :shareable,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :modifiedDate,
+            book.lastModifiedBy = :ownerId
+            WHERE book.id IN :bookIds
+            AND book.owner.id = :ownerId
+            """)
+    int updateShareableStatus(Collection<Integer> bookIds, Integer ownerId, boolean shareable, LocalDateTime modifiedDate);
+
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.archived = :archived,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :modifiedDate,
+            book.lastModifiedBy = :ownerId
+            WHERE book.id IN :bookIds
+            AND book.owner.id = :ownerId
+            """)
+    int updateArchivedStatus(Collection<Integer> bookIds, Integer ownerId, boolean archived, LocalDateTime modifiedDate);
+
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.loanState = :loanState,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :modifiedDate,
+            book.lastModifiedBy = :ownerId
+            WHERE book.id IN :bookIds
+            AND book.owner.id = :ownerId
+            AND book.loanState = :currentLoanState
+            """)
+    int updateLoanState(Collection<Integer> bookIds, Integer ownerId, LoanState currentLoanState, LoanState loanState, LocalDateTime modifiedDate);
+
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.loanState = :loanState,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :modifiedDate,
+            book.lastModifiedBy = :userId
+            WHERE book.id = :bookId
+            AND book.loanState = :currentLoanState
+            """)
+    int transitionLoanState(Integer bookId, LoanState currentLoanState, LoanState loanState, LocalDateTime modifiedDate, Integer userId);
+
+    // 0 means the book changed since version was read, or is no longer open to the borrower
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.loanState = com.univesp.library_system.enums.LoanState.ON_LOAN,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :modifiedDate,
+            book.lastModifiedBy = :userId
+            WHERE book.id = :bookId
+            AND book.version = :version
+            AND book.loanState = com.univesp.library_system.enums.LoanState.AVAILABLE
+            AND book.archived = false
+            AND book.shareable = true
+            AND book.owner.id <> :userId
+            """)
+    int borrow(Integer bookId, Integer version, LocalDateTime modifiedDate, Integer userId);
+
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.bookCover = :bookCover,
+            book.bookCoverHash = :bookCoverHash,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :modifiedDate,
+            book.lastModifiedBy = :ownerId
+            WHERE book.id = :bookId
+            AND book.owner.id = :ownerId
+            """)
+    int updateBookCover(Integer bookId, Integer ownerId, String bookCover, String bookCoverHash, LocalDateTime modifiedDate);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.RatingSummary(
+                book.id, book.ratingSum, book.ratingCount,
+                book.ratingBand0, book.ratingBand1, book.ratingBand2, book.ratingBand3, book.ratingBand4
+            )
+            FROM Book book
+            WHERE book.id = :bookId
+            """)
+    Optional<RatingSummary> findRatingSummary(Integer bookId);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.RatingSummary(
+                book.id, book.ratingSum, book.ratingCount,
+                book.ratingBand0, book.ratingBand1, book.ratingBand2, book.ratingBand3, book.ratingBand4
+            )
+            FROM Book book
             WHERE book.archived = false
             AND book.shareable = true
-            AND book.owner.id != :userId
-           """)
-    Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
+            AND book.ratingCount > 0
+            ORDER BY (book.ratingSum + :priorSum) / (book.ratingCount + :priorCount) DESC, book.id
+            """)
+    List<RatingSummary> findTopRated(double priorSum, double priorCount, Pageable pageable);
+
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.ratingSum = book.ratingSum + :note,
+            book.ratingCount = book.ratingCount + 1,
+            book.ratingBand0 = book.ratingBand0 + CASE WHEN :note < 1 THEN 1 ELSE 0 END,
+            book.ratingBand1 = book.ratingBand1 + CASE WHEN :note >= 1 AND :note < 2 THEN 1 ELSE 0 END,
+            book.ratingBand2 = book.ratingBand2 + CASE WHEN :note >= 2 AND :note < 3 THEN 1 ELSE 0 END,
+            book.ratingBand3 = book.ratingBand3 + CASE WHEN :note >= 3 AND :note < 4 THEN 1 ELSE 0 END,
+            book.ratingBand4 = book.ratingBand4 + CASE WHEN :note >= 4 THEN 1 ELSE 0 END,
+            book.version = book.version + 1
+            WHERE book.id = :bookId
+            """)
+    void addRating(Integer bookId, Double note);
+
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.ratingSum = book.ratingSum + :ratingSum,
+            book.ratingCount = book.ratingCount + :ratingCount,
+            book.ratingBand0 = book.ratingBand0 + :band0,
+            book.ratingBand1 = book.ratingBand1 + :band1,
+            book.ratingBand2 = book.ratingBand2 + :band2,
+            book.ratingBand3 = book.ratingBand3 + :band3,
+            book.ratingBand4 = book.ratingBand4 + :band4,
+            book.version = book.version + 1
+            WHERE book.id = :bookId
+            """)
+    void addRatings(Integer bookId, double ratingSum, int ratingCount, int band0, int band1, int band2, int band3, int band4);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Book book
+            SET book.ratingSum = (
+                SELECT COALESCE(SUM(feedback.note), 0)
+                FROM Feedback feedback
+                WHERE feedback.book.id = book.id
+            ),
+            book.ratingCount = (
+                SELECT COUNT(feedback)
+                FROM Feedback feedback
+                WHERE feedback.book.id = book.id
+            ),
+            book.version = COALESCE(book.version, 0) + 1
+            WHERE book.ratingCount IS NULL
+            """)
+    int backfillRatingAggregates();
 }
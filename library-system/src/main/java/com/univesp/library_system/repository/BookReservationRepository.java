@@ -0,0 +1,52 @@
+package com.univesp.library_system.repository;
+
+import com.univesp.library_system.domain.BookReservation;
+import com.univesp.library_system.repository.projection.ReservationHead;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookReservationRepository extends JpaRepository<BookReservation, Integer> {
+
+    @Query("""
+            SELECT reservation
+            FROM BookReservation reservation
+            WHERE reservation.book.id = :bookId
+            AND reservation.user.id = :userId
+            """)
+    Optional<BookReservation> findByBookIdAndUserId(Integer bookId, Integer userId);
+
+    @Query("""
+            SELECT MIN(reservation.ticket)
+            FROM BookReservation reservation
+            WHERE reservation.book.id = :bookId
+            """)
+    Optional<Long> findHeadTicket(Integer bookId);
+
+    @Query("""
+            SELECT MAX(reservation.ticket)
+            FROM BookReservation reservation
+            WHERE reservation.book.id = :bookId
+            """)
+    Optional<Long> findTailTicket(Integer bookId);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.ReservationHead(
+                reservation.id, book.id, book.title, reader.id, reader.email,
+                CONCAT(reader.firstName, ' ', reader.lastName)
+            )
+            FROM BookReservation reservation
+            JOIN reservation.book book
+            JOIN reservation.user reader
+            WHERE book.id IN :bookIds
+            AND reservation.ticket = (
+                SELECT MIN(head.ticket)
+                FROM BookReservation head
+                WHERE head.book.id = book.id
+            )
+            """)
+    List<ReservationHead> findHeads(Collection<Integer> bookIds);
+}
@@ -0,0 +1,75 @@
+package com.univesp.library_system.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class BookTransactionHistoryArchiveRepository {
+
+    private static final String COLUMNS = """
+            id, created_date, created_by, last_modified_date, last_modified_by, version,
+            user_id, book_id, returned, return_approved, due_date, overdue""";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<YearMonth> findArchivableMonths(LocalDateTime completedBefore) {
+        return jdbcTemplate.query("""
+                        SELECT DISTINCT date_trunc('month', created_date) AS month
+                        FROM book_transaction_history
+                        WHERE return_approved = true
+                        AND last_modified_date < :completedBefore
+                        """,
+                new MapSqlParameterSource("completedBefore", Timestamp.valueOf(completedBefore)),
+                (resultSet, rowNum) -> YearMonth.from(resultSet.getTimestamp("month").toLocalDateTime()));
+    }
+
+    // Creating a partition locks the whole archive, so it is done ahead of the batches and only when missing
+    public void createPartition(YearMonth month) {
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TABLE IF NOT EXISTS book_transaction_history_archive_%s
+                PARTITION OF book_transaction_history_archive
+                FOR VALUES FROM ('%s') TO ('%s')
+                """.formatted(month.format(PARTITION_SUFFIX), month.atDay(1), month.plusMonths(1).atDay(1)));
+    }
+
+    // Must run in a transaction, the batch stays locked between the copy and the delete
+    public int archiveCompletedLoans(LocalDateTime completedBefore, int batchSize) {
+        List<Integer> historyIds = new ArrayList<>(jdbcTemplate.queryForList("""
+                        SELECT id
+                        FROM book_transaction_history
+                        WHERE return_approved = true
+                        AND last_modified_date < :completedBefore
+                        LIMIT :batchSize
+                        FOR UPDATE SKIP LOCKED
+                        """,
+                new MapSqlParameterSource()
+                        .addValue("completedBefore", Timestamp.valueOf(completedBefore))
+                        .addValue("batchSize", batchSize),
+                Integer.class));
+        if (historyIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource batch = new MapSqlParameterSource("historyIds", historyIds);
+        jdbcTemplate.update("""
+                INSERT INTO book_transaction_history_archive (%1$s)
+                SELECT %1$s
+                FROM book_transaction_history
+                WHERE id IN (:historyIds)
+                """.formatted(COLUMNS), batch);
+        return jdbcTemplate.update("""
+                DELETE FROM book_transaction_history
+                WHERE id IN (:historyIds)
+                """, batch);
+    }
+}
@@ -1,38 +1,149 @@
 package com.univesp.library_system.repository;
 
 import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.repository.projection.BookBorrowCount;
+import com.univesp.library_system.repository.projection.BorrowedBookSummary;
+import com.univesp.library_system.repository.projection.OverdueLoan;
+import com.univesp.library_system.repository.projection.PendingReturn;
+import com.univesp.library_system.repository.projection.VersionStamp;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.univesp.library_system.repository.BookRepository.EXPORT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface BookTransactionHistoryRepository extends JpaRepository<BookTransactionHistory, Integer> {
 
+    @Query(value = """
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.user.id = :userId
+            """,
+            countQuery = """
+            SELECT COUNT(history)
+            FROM BookTransactionHistory history
+            WHERE history.user.id = :userId
+            """)
+    Page<BorrowedBookSummary> findAllBorrowedBooks(Pageable pageable, Integer userId);
+
     @Query("""
-            SELECT history
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
             FROM BookTransactionHistory history
+            JOIN history.book book
             WHERE history.user.id = :userId
             """)
-    Page<BookTransactionHistory> findAllBorrowedBooks(Pageable pageable, Integer userId);
+    Slice<BorrowedBookSummary> findBorrowedBooksSlice(Pageable pageable, Integer userId);
+
+    @Query(value = """
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE book.owner.id = :userId
+            """,
+            countQuery = """
+            SELECT COUNT(history)
+            FROM BookTransactionHistory history
+            WHERE history.book.owner.id = :userId
+            """)
+    Page<BorrowedBookSummary> findAllReturnedBooks(Pageable pageable, Integer userId);
 
     @Query("""
-            SELECT history
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE book.owner.id = :userId
+            """)
+    Slice<BorrowedBookSummary> findReturnedBooksSlice(Pageable pageable, Integer userId);
+
+    @Query(value = """
+            SELECT new com.univesp.library_system.repository.projection.VersionStamp(history.id, history.version + book.version)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.user.id = :userId
+            """,
+            countQuery = """
+            SELECT COUNT(history)
+            FROM BookTransactionHistory history
+            WHERE history.user.id = :userId
+            """)
+    Page<VersionStamp> findBorrowedBookStamps(Pageable pageable, Integer userId);
+
+    @Query(value = """
+            SELECT new com.univesp.library_system.repository.projection.VersionStamp(history.id, history.version + book.version)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE book.owner.id = :userId
+            """,
+            countQuery = """
+            SELECT COUNT(history)
             FROM BookTransactionHistory history
             WHERE history.book.owner.id = :userId
             """)
-    Page<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer userId);
+    Page<VersionStamp> findReturnedBookStamps(Pageable pageable, Integer userId);
 
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
     @Query("""
-            SELECT
-            (COUNT(*) > 0) AS isBorrowed
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
             FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE book.owner.id = :userId
+            ORDER BY history.id
+            """)
+    Stream<BorrowedBookSummary> streamReturnedBooks(Integer userId);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
+            FROM BookTransactionHistory history
+            JOIN history.book book
             WHERE history.user.id = :userId
-            AND history.book.id = :bookId
-            AND history.returnApproved = false
+            AND (history.createdDate < :createdDate OR (history.createdDate = :createdDate AND history.id < :id))
+            ORDER BY history.createdDate DESC, history.id DESC
+            """)
+    List<BorrowedBookSummary> findBorrowedBooksAfter(Integer userId, LocalDateTime createdDate, Integer id, Pageable pageable);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE book.owner.id = :userId
+            AND (history.createdDate < :createdDate OR (history.createdDate = :createdDate AND history.id < :id))
+            ORDER BY history.createdDate DESC, history.id DESC
             """)
-    boolean isAlreadyBorrowedByUser(Integer bookId, Integer userId);
+    List<BorrowedBookSummary> findReturnedBooksAfter(Integer userId, LocalDateTime createdDate, Integer id, Pageable pageable);
 
     @Query("""
             SELECT transaction
@@ -45,12 +156,101 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
     Optional<BookTransactionHistory> findByBookIdAndUserId(Integer bookId, Integer userId);
 
     @Query("""
-            SELECT transaction
+            SELECT transaction.id
             FROM BookTransactionHistory transaction
-            WHERE transaction.book.owner.id = :userId
+            WHERE transaction.user.id = :userId
             AND transaction.book.id = :bookId
-            AND transaction.returned = true
+            AND transaction.returned = false
             AND transaction.returnApproved = false
             """)
-    Optional<BookTransactionHistory> findByBookIdAndOwnerId(Integer bookId, Integer userId);
+    Optional<Integer> findOpenLoanId(Integer bookId, Integer userId);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.BookBorrowCount(
+                history.book.id, COUNT(history)
+            )
+            FROM BookTransactionHistory history
+            GROUP BY history.book.id
+            """)
+    List<BookBorrowCount> countBorrowsByBook();
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.OverdueLoan(
+                history.id, history.dueDate, borrower.email,
+                CONCAT(borrower.firstName, ' ', borrower.lastName), book.title
+            )
+            FROM BookTransactionHistory history
+            JOIN history.user borrower
+            JOIN history.book book
+            WHERE history.returned = false
+            AND history.overdue = false
+            AND history.dueDate < :now
+            AND (history.dueDate > :dueDate OR (history.dueDate = :dueDate AND history.id > :id))
+            ORDER BY history.dueDate, history.id
+            """)
+    List<OverdueLoan> findOverdueLoansAfter(LocalDateTime now, LocalDateTime dueDate, Integer id, Pageable pageable);
+
+    @Modifying
+    @Query("""
+            UPDATE BookTransactionHistory history
+            SET history.overdue = true,
+                history.version = history.version + 1,
+                history.lastModifiedDate = :modifiedDate
+            WHERE history.id IN :historyIds
+            AND history.returned = false
+            AND history.overdue = false
+            """)
+    int markOverdue(Collection<Integer> historyIds, LocalDateTime modifiedDate);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.PendingReturn(history.id, book.id, history.user.id)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE book.id IN :bookIds
+            AND book.owner.id = :ownerId
+            AND book.archived = false
+            AND book.shareable = true
+            AND history.returned = true
+            AND history.returnApproved = false
+            """)
+    List<PendingReturn> findPendingReturns(Collection<Integer> bookIds, Integer ownerId);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.PendingReturn(history.id, book.id, history.user.id)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE book.owner.id = :ownerId
+            AND book.archived = false
+            AND book.shareable = true
+            AND history.returned = true
+            AND history.returnApproved = false
+            ORDER BY history.id
+            """)
+    List<PendingReturn> findAllPendingReturns(Integer ownerId, Pageable pageable);
+
+    @Modifying
+    @Query("""
+            UPDATE BookTransactionHistory history
+            SET history.returnApproved = true,
+                history.version = history.version + 1,
+                history.lastModifiedDate = :modifiedDate,
+                history.lastModifiedBy = :ownerId
+            WHERE history.id IN :historyIds
+            AND history.returned = true
+            AND history.returnApproved = false
+            """)
+    int approveReturns(Collection<Integer> historyIds, Integer ownerId, LocalDateTime modifiedDate);
+
+    @Modifying
+    @Query("""
+            UPDATE BookTransactionHistory history
+            SET history.returned = true,
+                history.version = history.version + 1,
+                history.lastModifiedDate = :modifiedDate,
+                history.lastModifiedBy = :userId
+            WHERE history.id = :historyId
+            AND history.user.id = :userId
+            AND history.returned = false
+            """)
+    int markReturned(Integer historyId, Integer userId, LocalDateTime modifiedDate);
 }
@@ -0,0 +1,43 @@
+package com.univesp.library_system.repository;
+
+import com.univesp.library_system.domain.BookTransactionRecord;
+import com.univesp.library_system.repository.projection.BorrowedBookSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface BookTransactionRecordRepository extends JpaRepository<BookTransactionRecord, Integer> {
+
+    @Query(value = """
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
+            FROM BookTransactionRecord history
+            JOIN history.book book
+            WHERE history.user.id = :userId
+            """,
+            countQuery = """
+            SELECT COUNT(history)
+            FROM BookTransactionRecord history
+            WHERE history.user.id = :userId
+            """)
+    Page<BorrowedBookSummary> findAllBorrowedBooks(Pageable pageable, Integer userId);
+
+    @Query(value = """
+            SELECT new com.univesp.library_system.repository.projection.BorrowedBookSummary(
+                history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                book.ratingSum, book.ratingCount, history.returned, history.returnApproved, history.dueDate, history.overdue
+            )
+            FROM BookTransactionRecord history
+            JOIN history.book book
+            WHERE book.owner.id = :userId
+            """,
+            countQuery = """
+            SELECT COUNT(history)
+            FROM BookTransactionRecord history
+            WHERE history.book.owner.id = :userId
+            """)
+    Page<BorrowedBookSummary> findAllReturnedBooks(Pageable pageable, Integer userId);
+}
@@ -1,11 +1,16 @@
 package com.univesp.library_system.repository;
 
 import com.univesp.library_system.domain.Feedback;
+import com.univesp.library_system.repository.projection.VersionStamp;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
 
     @Query("""
@@ -14,4 +19,27 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
             WHERE feedback.book.id = :bookId
             """)
     Page<Feedback> findAllByBookId(Integer bookId, Pageable pageable);
+
+    @Query("""
+            SELECT feedback
+            FROM Feedback feedback
+            WHERE feedback.book.id = :bookId
+            """)
+    Slice<Feedback> findSliceByBookId(Integer bookId, Pageable pageable);
+
+    @Query("""
+            SELECT feedback
+            FROM Feedback feedback
+            WHERE feedback.book.id = :bookId
+            AND (feedback.createdDate < :createdDate OR (feedback.createdDate = :createdDate AND feedback.id < :id))
+            ORDER BY feedback.createdDate DESC, feedback.id DESC
+            """)
+    List<Feedback> findByBookIdAfter(Integer bookId, LocalDateTime createdDate, Integer id, Pageable pageable);
+
+    @Query("""
+            SELECT new com.univesp.library_system.repository.projection.VersionStamp(feedback.id, feedback.version)
+            FROM Feedback feedback
+            WHERE feedback.book.id = :bookId
+            """)
+    Page<VersionStamp> findStampsByBookId(Integer bookId, Pageable pageable);
 }
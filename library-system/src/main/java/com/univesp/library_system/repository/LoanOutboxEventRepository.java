@@ -0,0 +1,44 @@
+package com.univesp.library_system.repository;
+
+import com.univesp.library_system.domain.LoanOutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_LOCK_TIMEOUT;
+
+public interface LoanOutboxEventRepository extends JpaRepository<LoanOutboxEvent, Integer> {
+
+    // -2 is LockOptions.SKIP_LOCKED, concurrent relays split the pending events instead of waiting on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("""
+            SELECT event
+            FROM LoanOutboxEvent event
+            WHERE event.dispatchedDate IS NULL
+            AND event.attempts < :maxAttempts
+            AND event.id > :id
+            ORDER BY event.id
+            """)
+    List<LoanOutboxEvent> findPendingEventsAfter(int maxAttempts, Integer id, Pageable pageable);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM loan_outbox_event
+            WHERE id IN (
+                SELECT id
+                FROM loan_outbox_event
+                WHERE dispatched_date < :dispatchedBefore
+                LIMIT :batchSize
+            )
+            """)
+    int deleteDispatchedBefore(LocalDateTime dispatchedBefore, int batchSize);
+}
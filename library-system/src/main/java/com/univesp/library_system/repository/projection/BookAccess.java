@@ -0,0 +1,19 @@
+package com.univesp.library_system.repository.projection;
+
+import java.util.Objects;
+
+public record BookAccess(
+        Integer id,
+        Integer ownerId,
+        boolean archived,
+        boolean shareable
+) {
+
+    public boolean isOwnedBy(Integer userId) {
+        return Objects.equals(ownerId, userId);
+    }
+
+    public boolean isOpen() {
+        return !archived && shareable;
+    }
+}
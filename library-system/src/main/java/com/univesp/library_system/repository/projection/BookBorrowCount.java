@@ -0,0 +1,7 @@
+package com.univesp.library_system.repository.projection;
+
+public record BookBorrowCount(
+        Integer bookId,
+        long borrowCount
+) {
+}
@@ -0,0 +1,8 @@
+package com.univesp.library_system.repository.projection;
+
+public record BookFacetCount(
+        String authorName,
+        Integer ratingBand,
+        long count
+) {
+}
@@ -0,0 +1,9 @@
+package com.univesp.library_system.repository.projection;
+
+import com.univesp.library_system.enums.LoanState;
+
+public record BookLoanStamp(
+        LoanState loanState,
+        Integer version
+) {
+}
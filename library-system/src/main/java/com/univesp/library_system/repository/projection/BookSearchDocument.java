@@ -0,0 +1,13 @@
+package com.univesp.library_system.repository.projection;
+
+public record BookSearchDocument(
+        Integer id,
+        Integer ownerId,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        boolean archived,
+        boolean shareable
+) {
+}
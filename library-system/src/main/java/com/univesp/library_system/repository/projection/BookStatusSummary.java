@@ -0,0 +1,8 @@
+package com.univesp.library_system.repository.projection;
+
+public record BookStatusSummary(
+        Integer id,
+        boolean archived,
+        boolean shareable
+) {
+}
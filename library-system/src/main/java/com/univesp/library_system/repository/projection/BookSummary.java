@@ -0,0 +1,23 @@
+package com.univesp.library_system.repository.projection;
+
+import com.univesp.library_system.enums.LoanState;
+
+import java.time.LocalDateTime;
+
+public record BookSummary(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        String ownerName,
+        String bookCover,
+        String bookCoverHash,
+        Double ratingSum,
+        Integer ratingCount,
+        boolean archived,
+        boolean shareable,
+        LoanState loanState,
+        LocalDateTime createdDate
+) {
+}
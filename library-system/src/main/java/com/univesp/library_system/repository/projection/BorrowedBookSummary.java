@@ -0,0 +1,19 @@
+package com.univesp.library_system.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record BorrowedBookSummary(
+        Integer id,
+        LocalDateTime createdDate,
+        Integer bookId,
+        String title,
+        String authorName,
+        String isbn,
+        Double ratingSum,
+        Integer ratingCount,
+        boolean returned,
+        boolean returnApproved,
+        LocalDateTime dueDate,
+        boolean overdue
+) {
+}
@@ -0,0 +1,12 @@
+package com.univesp.library_system.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record OverdueLoan(
+        Integer id,
+        LocalDateTime dueDate,
+        String borrowerEmail,
+        String borrowerName,
+        String bookTitle
+) {
+}
@@ -0,0 +1,8 @@
+package com.univesp.library_system.repository.projection;
+
+public record PendingReturn(
+        Integer historyId,
+        Integer bookId,
+        Integer userId
+) {
+}
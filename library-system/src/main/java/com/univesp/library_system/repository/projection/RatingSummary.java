@@ -0,0 +1,13 @@
+package com.univesp.library_system.repository.projection;
+
+public record RatingSummary(
+        Integer bookId,
+        Double ratingSum,
+        Integer ratingCount,
+        int ratingBand0,
+        int ratingBand1,
+        int ratingBand2,
+        int ratingBand3,
+        int ratingBand4
+) {
+}
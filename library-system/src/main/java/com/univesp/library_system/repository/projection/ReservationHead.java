@@ -0,0 +1,11 @@
+package com.univesp.library_system.repository.projection;
+
+public record ReservationHead(
+        Integer id,
+        Integer bookId,
+        String bookTitle,
+        Integer userId,
+        String userEmail,
+        String userName
+) {
+}
@@ -0,0 +1,34 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.handler.OperationNotPermittedException;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.projection.BookAccess;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import static com.univesp.library_system.config.CacheConfig.BOOK_ACCESS_CACHE;
+
+// Other nodes may see old archived and shareable flags until their cache entry expires
+@Component
+@RequiredArgsConstructor
+public class BookAccessGuard {
+
+    private final BookRepository bookRepository;
+
+    @Cacheable(cacheNames = BOOK_ACCESS_CACHE, key = "#bookId", sync = true)
+    public BookAccess find(Integer bookId) {
+        return bookRepository.findAccessById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
+    }
+
+    public BookAccess requireOwner(Integer bookId, User user) {
+        BookAccess book = find(bookId);
+        if (!book.isOwnedBy(user.getId())) {
+            throw new OperationNotPermittedException("You are not the owner of this book");
+        }
+        return book;
+    }
+}
@@ -0,0 +1,116 @@
+package com.univesp.library_system.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.univesp.library_system.controller.response.BookResponse;
+import com.univesp.library_system.controller.response.BorrowedBookResponse;
+import com.univesp.library_system.enums.ExportFormat;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import com.univesp.library_system.repository.projection.BookSummary;
+import com.univesp.library_system.repository.projection.BorrowedBookSummary;
+import com.univesp.library_system.service.mapper.BookMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static com.univesp.library_system.domain.BookSpecification.withOwnerId;
+import static com.univesp.library_system.service.serviceimpl.CsvUtils.writeRecord;
+
+@Service
+@RequiredArgsConstructor
+public class BookExportService {
+
+    private static final List<String> BOOK_COLUMNS =
+            List.of("id", "title", "authorName", "isbn", "synopsis", "ownerName", "rate", "archived", "shareable");
+    private static final List<String> RETURNED_BOOK_COLUMNS =
+            List.of("id", "title", "authorName", "isbn", "rate", "returned", "returnApproved", "dueDate", "overdue");
+
+    private final BookRepository bookRepository;
+    private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void exportBooksByOwner(Integer ownerId, ExportFormat format, OutputStream outputStream) {
+        export(
+                () -> bookRepository.streamSummaries(withOwnerId(ownerId), Sort.by("id")),
+                format,
+                outputStream,
+                BOOK_COLUMNS,
+                (BookSummary book) -> bookMapper.toBookResponse(book),
+                (BookResponse book) -> Arrays.asList(book.id(), book.title(), book.authorName(), book.isbn(), book.synopsis(),
+                        book.ownerName(), book.rate(), book.archived(), book.shareable())
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public void exportReturnedBooks(Integer ownerId, ExportFormat format, OutputStream outputStream) {
+        export(
+                () -> bookTransactionHistoryRepository.streamReturnedBooks(ownerId),
+                format,
+                outputStream,
+                RETURNED_BOOK_COLUMNS,
+                (BorrowedBookSummary history) -> bookMapper.toBorrowedBookResponse(history),
+                (BorrowedBookResponse book) -> Arrays.asList(book.id(), book.title(), book.authorName(), book.isbn(),
+                        book.rate(), book.returned(), book.returnApproved(), book.dueDate(), book.overdue())
+        );
+    }
+
+    // Streaming queries need an open transaction, and PostgreSQL only honours the fetch size outside auto-commit
+    private <S, R> void export(
+            Supplier<Stream<S>> rows,
+            ExportFormat format,
+            OutputStream outputStream,
+            List<String> columns,
+            Function<S, R> mapper,
+            Function<R, List<?>> toCsvRecord
+    ) {
+        try (Stream<S> stream = rows.get();
+             Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            Iterator<R> responses = stream.map(mapper).iterator();
+            if (format == ExportFormat.CSV) {
+                writeCsv(writer, columns, responses, toCsvRecord);
+            } else {
+                writeNdjson(writer, responses);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <R> void writeNdjson(Writer writer, Iterator<R> responses) throws IOException {
+        ObjectWriter objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            while (responses.hasNext()) {
+                objectWriter.writeValue(generator, responses.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static <R> void writeCsv(Writer writer, List<String> columns, Iterator<R> responses, Function<R, List<?>> toCsvRecord)
+            throws IOException {
+        writeRecord(writer, columns);
+        while (responses.hasNext()) {
+            writeRecord(writer, toCsvRecord.apply(responses.next()));
+        }
+    }
+}
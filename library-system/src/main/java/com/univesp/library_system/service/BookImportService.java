@@ -0,0 +1,221 @@
+package com.univesp.library_system.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.univesp.library_system.controller.request.BookRequest;
+import com.univesp.library_system.controller.response.BookImportError;
+import com.univesp.library_system.controller.response.BookImportResponse;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.handler.OperationNotPermittedException;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.projection.BookSearchDocument;
+import com.univesp.library_system.service.mapper.BookMapper;
+import com.univesp.library_system.service.search.BookSearchIndex;
+import com.univesp.library_system.service.search.BookSuggestionIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.univesp.library_system.service.serviceimpl.CsvUtils.isBlank;
+import static com.univesp.library_system.service.serviceimpl.CsvUtils.readRecord;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookImportService {
+
+    public static final String TEXT_CSV = "text/csv";
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final MediaType NDJSON = MediaType.valueOf(APPLICATION_NDJSON);
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    private static final List<String> CSV_COLUMNS = List.of("title", "authorName", "isbn", "synopsis", "shareable");
+
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    public BookImportResponse importBooks(InputStream body, MediaType contentType, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        BookImport bookImport = new BookImport(user);
+        long start = System.nanoTime();
+        try (LineNumberReader reader = new LineNumberReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            if (NDJSON.isCompatibleWith(contentType)) {
+                readNdjson(reader, bookImport);
+            } else {
+                readCsv(reader, bookImport);
+            }
+        } catch (IOException e) {
+            bookImport.abort(e.getMessage());
+        }
+        bookImport.flush();
+        long elapsedNanos = System.nanoTime() - start;
+        log.info("Imported {} of {} books for user {} in {} ms",
+                bookImport.importedRows, bookImport.totalRows, user.getId(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return BookImportResponse.builder()
+                .totalRows(bookImport.totalRows)
+                .importedRows(bookImport.importedRows)
+                .rejectedRows(bookImport.rejectedRows)
+                .completed(!bookImport.aborted)
+                .errors(bookImport.errors)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .rowsPerSecond(elapsedNanos == 0 ? 0 : bookImport.totalRows * 1e9 / elapsedNanos)
+                .build();
+    }
+
+    private void readCsv(LineNumberReader reader, BookImport bookImport) throws IOException {
+        List<String> header = readRecord(reader);
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(StringUtils.removeStart(header.get(i), BYTE_ORDER_MARK).trim(), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new OperationNotPermittedException("Missing CSV column::" + column);
+            }
+        }
+        while (true) {
+            bookImport.line = reader.getLineNumber() + 1;
+            List<String> record = readRecord(reader);
+            if (record == null) {
+                return;
+            }
+            if (isBlank(record)) {
+                continue;
+            }
+            bookImport.accept(new BookRequest(
+                    null,
+                    field(record, columns, "title"),
+                    field(record, columns, "authorName"),
+                    field(record, columns, "isbn"),
+                    field(record, columns, "synopsis"),
+                    Boolean.parseBoolean(field(record, columns, "shareable"))
+            ));
+        }
+    }
+
+    private void readNdjson(LineNumberReader reader, BookImport bookImport) throws IOException {
+        while (true) {
+            bookImport.line = reader.getLineNumber() + 1;
+            String line = reader.readLine();
+            if (line == null) {
+                return;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                bookImport.accept(objectMapper.readValue(line, BookRequest.class));
+            } catch (JsonProcessingException e) {
+                bookImport.reject(List.of("Malformed JSON::" + e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        return index < record.size() ? StringUtils.trimToNull(record.get(index)) : null;
+    }
+
+    private void persist(List<Book> books) {
+        transactionTemplate.executeWithoutResult(status -> {
+            bookRepository.saveAll(books);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        for (Book book : books) {
+            BookSearchDocument searchDocument = bookMapper.toSearchDocument(book);
+            bookSearchIndex.index(searchDocument);
+            bookSuggestionIndex.add(searchDocument);
+        }
+    }
+
+    private final class BookImport {
+
+        private final User owner;
+        private final List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<BookImportError> errors = new ArrayList<>();
+        private long totalRows;
+        private long importedRows;
+        private long rejectedRows;
+        private boolean aborted;
+        private long line;
+
+        private BookImport(User owner) {
+            this.owner = owner;
+        }
+
+        private void accept(BookRequest bookRequest) {
+            List<String> violations = validator.validate(bookRequest).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .distinct()
+                    .sorted()
+                    .toList();
+            if (!violations.isEmpty()) {
+                reject(violations);
+                return;
+            }
+            totalRows++;
+            Book book = bookMapper.toBook(bookRequest);
+            book.setId(null);
+            book.setOwner(owner);
+            chunk.add(book);
+            if (chunk.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void reject(List<String> violations) {
+            totalRows++;
+            rejectedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportError(line, violations));
+            }
+        }
+
+        private void abort(String message) {
+            aborted = true;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportError(line, List.of("Import aborted::" + message)));
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            persist(chunk);
+            importedRows += chunk.size();
+            chunk.clear();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.univesp.library_system.service;
+
+public record BookRatedEvent(
+        Integer bookId
+) {
+}
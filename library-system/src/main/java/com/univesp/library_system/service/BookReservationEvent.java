@@ -0,0 +1,8 @@
+package com.univesp.library_system.service;
+
+public record BookReservationEvent(
+        String email,
+        String fullName,
+        String bookTitle
+) {
+}
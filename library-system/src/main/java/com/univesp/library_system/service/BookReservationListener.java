@@ -0,0 +1,39 @@
+package com.univesp.library_system.service;
+
+import jakarta.mail.MessagingException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+
+import static com.univesp.library_system.enums.EmailTemplateName.BOOK_RESERVATION_READY;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookReservationListener {
+
+    private final EmailService emailService;
+
+    @Value("${application.mailing.frontend.borrowed-books-url}")
+    private String borrowedBooksUrl;
+
+    // Only after the commit, a rolled back hand-off must not tell the reader the book is theirs
+    @TransactionalEventListener
+    public void onReservationFulfilled(BookReservationEvent event) {
+        try {
+            emailService.sendEmail(
+                    event.email(),
+                    event.fullName(),
+                    BOOK_RESERVATION_READY,
+                    Map.of("bookTitle", event.bookTitle(), "confirmationUrl", borrowedBooksUrl),
+                    "Your reserved book is ready"
+            );
+        } catch (MessagingException exception) {
+            log.warn("Could not notify {} about the reserved book {}", event.email(), event.bookTitle());
+        }
+    }
+}
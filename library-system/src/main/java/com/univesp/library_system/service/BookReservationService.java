@@ -0,0 +1,128 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.controller.response.BookReservationResponse;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.BookReservation;
+import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.domain.LoanOutboxEvent;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.LoanEventType;
+import com.univesp.library_system.enums.LoanState;
+import com.univesp.library_system.handler.OperationNotPermittedException;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.BookReservationRepository;
+import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import com.univesp.library_system.repository.LoanOutboxEventRepository;
+import com.univesp.library_system.repository.UserRepository;
+import com.univesp.library_system.repository.projection.ReservationHead;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+@Service
+@RequiredArgsConstructor
+public class BookReservationService {
+
+    private final BookRepository bookRepository;
+    private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private final BookReservationRepository bookReservationRepository;
+    private final UserRepository userRepository;
+    private final LoanOutboxEventRepository loanOutboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.loan.period:14d}")
+    private Duration loanPeriod;
+
+    @Transactional
+    public BookReservationResponse reserveBook(Integer bookId, Authentication connectedUser) {
+        // The row lock orders reservations of the same book and waits for a return approval handing it off
+        Book book = bookRepository.findByIdForUpdate(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
+        if (book.isArchived() || !book.isShareable()) {
+            throw new OperationNotPermittedException("This book is not available for borrowing");
+        }
+        User user = ((User) connectedUser.getPrincipal());
+        if (Objects.equals(book.getOwner().getId(), user.getId())) {
+            throw new OperationNotPermittedException("You cannot reserve your own book");
+        }
+        if (book.getLoanState() == LoanState.AVAILABLE) {
+            throw new OperationNotPermittedException("The book is available, borrow it instead");
+        }
+        if (bookTransactionHistoryRepository.findByBookIdAndUserId(bookId, user.getId()).isPresent()) {
+            throw new OperationNotPermittedException("You already borrowed this book");
+        }
+        if (bookReservationRepository.findByBookIdAndUserId(bookId, user.getId()).isPresent()) {
+            throw new OperationNotPermittedException("You already reserved this book");
+        }
+        long ticket = bookReservationRepository.findTailTicket(bookId).orElse(0L) + 1;
+        BookReservation reservation = BookReservation.builder()
+                .book(book)
+                .user(user)
+                .ticket(ticket)
+                .build();
+        bookReservationRepository.save(reservation);
+        return toReservationResponse(bookId, ticket);
+    }
+
+    public BookReservationResponse findReservation(Integer bookId, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        BookReservation reservation = bookReservationRepository.findByBookIdAndUserId(bookId, user.getId())
+                .orElseThrow(() -> new OperationNotPermittedException("You did not reserve this book with ID::" + bookId));
+        return toReservationResponse(bookId, reservation.getTicket());
+    }
+
+    // Must run in the transaction that made the books available, after their update, so no reservation gets in between
+    List<Integer> handOff(Collection<Integer> bookIds, Integer ownerId) {
+        List<ReservationHead> heads = bookReservationRepository.findHeads(bookIds);
+        if (heads.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime dueDate = LocalDateTime.now().plus(loanPeriod);
+        List<BookTransactionHistory> loans = bookTransactionHistoryRepository.saveAll(heads.stream()
+                .<BookTransactionHistory>map(head -> BookTransactionHistory.builder()
+                        .user(userRepository.getReferenceById(head.userId()))
+                        .book(bookRepository.getReferenceById(head.bookId()))
+                        .returned(false)
+                        .returnApproved(false)
+                        .dueDate(dueDate)
+                        .build())
+                .toList());
+        loanOutboxEventRepository.saveAll(IntStream.range(0, heads.size())
+                .mapToObj(index -> toBorrowedEvent(loans.get(index).getId(), heads.get(index).bookId(), heads.get(index).userId()))
+                .toList());
+        bookReservationRepository.deleteAllByIdInBatch(heads.stream().map(ReservationHead::id).toList());
+        List<Integer> handedOffBookIds = heads.stream().map(ReservationHead::bookId).toList();
+        bookRepository.updateLoanState(handedOffBookIds, ownerId, LoanState.AVAILABLE, LoanState.ON_LOAN, LocalDateTime.now());
+        heads.forEach(head -> eventPublisher.publishEvent(
+                new BookReservationEvent(head.userEmail(), head.userName(), head.bookTitle())));
+        return handedOffBookIds;
+    }
+
+    private static LoanOutboxEvent toBorrowedEvent(Integer historyId, Integer bookId, Integer userId) {
+        return LoanOutboxEvent.builder()
+                .type(LoanEventType.BORROWED)
+                .historyId(historyId)
+                .bookId(bookId)
+                .userId(userId)
+                .build();
+    }
+
+    private BookReservationResponse toReservationResponse(Integer bookId, long ticket) {
+        long headTicket = bookReservationRepository.findHeadTicket(bookId).orElse(ticket);
+        return BookReservationResponse.builder()
+                .bookId(bookId)
+                .position(ticket - headTicket + 1)
+                .build();
+    }
+}
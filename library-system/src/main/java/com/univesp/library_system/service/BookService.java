@@ -1,57 +1,148 @@
 package com.univesp.library_system.service;
 
+import com.univesp.library_system.controller.request.BookFilterRequest;
+import com.univesp.library_system.controller.request.BookIdsRequest;
 import com.univesp.library_system.controller.request.BookRequest;
+import com.univesp.library_system.controller.response.BookBulkUpdateResponse;
+import com.univesp.library_system.controller.response.BookCoverResponse;
+import com.univesp.library_system.controller.response.BookFacetResponse;
 import com.univesp.library_system.controller.response.BookResponse;
+import com.univesp.library_system.controller.response.BookReturnApprovalResponse;
+import com.univesp.library_system.controller.response.BookSuggestionResponse;
 import com.univesp.library_system.controller.response.BorrowedBookResponse;
+import com.univesp.library_system.controller.response.CursorPageResponse;
+import com.univesp.library_system.controller.response.LeaderboardEntryResponse;
 import com.univesp.library_system.controller.response.PageResponse;
+import com.univesp.library_system.controller.response.SliceResponse;
 import com.univesp.library_system.domain.Book;
 import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.domain.LoanOutboxEvent;
 import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.LeaderboardKind;
+import com.univesp.library_system.enums.LoanEventType;
+import com.univesp.library_system.enums.LoanState;
+import com.univesp.library_system.handler.BookAlreadyBorrowedException;
 import com.univesp.library_system.handler.OperationNotPermittedException;
+import com.univesp.library_system.repository.ApproximateCountRepository;
 import com.univesp.library_system.repository.BookRepository;
 import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import com.univesp.library_system.repository.BookTransactionRecordRepository;
+import com.univesp.library_system.repository.LoanOutboxEventRepository;
+import com.univesp.library_system.repository.projection.BookAccess;
+import com.univesp.library_system.repository.projection.BookFacetCount;
+import com.univesp.library_system.repository.projection.BookLoanStamp;
+import com.univesp.library_system.repository.projection.BookSearchDocument;
+import com.univesp.library_system.repository.projection.BookStatusSummary;
+import com.univesp.library_system.repository.projection.BookSummary;
+import com.univesp.library_system.repository.projection.BorrowedBookSummary;
+import com.univesp.library_system.repository.projection.PendingReturn;
+import com.univesp.library_system.service.leaderboard.BookLeaderboard;
 import com.univesp.library_system.service.mapper.BookMapper;
+import com.univesp.library_system.service.search.BookSearchIndex;
+import com.univesp.library_system.service.search.BookSuggestionIndex;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static com.univesp.library_system.config.CacheConfig.BOOKS_CACHE;
+import static com.univesp.library_system.config.CacheConfig.BOOK_ACCESS_CACHE;
+import static com.univesp.library_system.domain.BookSpecification.after;
+import static com.univesp.library_system.domain.BookSpecification.createdBefore;
+import static com.univesp.library_system.domain.BookSpecification.createdFrom;
+import static com.univesp.library_system.domain.BookSpecification.displayableTo;
+import static com.univesp.library_system.domain.BookSpecification.withAuthorName;
+import static com.univesp.library_system.domain.BookSpecification.withAvailability;
+import static com.univesp.library_system.domain.BookSpecification.withIds;
+import static com.univesp.library_system.domain.BookSpecification.withIsbnPrefix;
+import static com.univesp.library_system.domain.BookSpecification.withMinimumRate;
 import static com.univesp.library_system.domain.BookSpecification.withOwnerId;
+import static com.univesp.library_system.service.serviceimpl.FileUtils.computeContentHash;
 
 @Service
 @RequiredArgsConstructor
 public class BookService {
 
+    private static final int MAX_AUTHOR_FACETS = 20;
+    private static final int MAX_BULK_APPROVALS = 1000;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdDate"), Sort.Order.desc("id"));
+
     private final BookMapper bookMapper;
     private final BookRepository bookRepository;
     private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private final BookTransactionRecordRepository bookTransactionRecordRepository;
     private final FileStorageService fileStorageService;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final BookLeaderboard bookLeaderboard;
+    private final CacheManager cacheManager;
+    private final ApproximateCountRepository approximateCountRepository;
+    private final BookReservationService bookReservationService;
+    private final LoanOutboxEventRepository loanOutboxEventRepository;
+    private final BookAccessGuard bookAccessGuard;
+
+    @Value("${application.loan.period:14d}")
+    private Duration loanPeriod;
 
     public Integer saveBook(BookRequest bookRequest, Authentication connectedUser) {
         User user = ((User) connectedUser.getPrincipal());
         Book book = bookMapper.toBook(bookRequest);
         book.setOwner(user);
-        return bookRepository.save(book).getId();
+        Book savedBook = bookRepository.save(book);
+        BookSearchDocument searchDocument = bookMapper.toSearchDocument(savedBook);
+        bookSearchIndex.index(searchDocument);
+        bookSuggestionIndex.add(searchDocument);
+        return savedBook.getId();
     }
 
+    @Cacheable(cacheNames = BOOKS_CACHE, key = "#bookId", sync = true)
     public BookResponse findById(Integer bookId) {
-        return bookRepository.findById(bookId)
+        return bookRepository.findSummaries(withIds(List.of(bookId)), Pageable.unpaged()).stream()
+                .findFirst()
                 .map(bookMapper::toBookResponse)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found"));
     }
 
-    public PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser) {
+    public PageResponse<BookResponse> findAllBooks(int page, int size, BookFilterRequest filter, Authentication connectedUser) {
         User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAllDisplayableBooks(pageable, user.getId());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        Page<BookSummary> books = bookRepository.findAllSummaries(toSpecification(filter, user), pageable);
         List<BookResponse> bookResponse = books.stream()
                 .map(bookMapper::toBookResponse)
                 .toList();
@@ -66,10 +157,92 @@ public class BookService {
         );
     }
 
+    public SliceResponse<BookResponse> findAllBooksSlice(
+            int page, int size, BookFilterRequest filter, boolean approximateTotal, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        boolean unfiltered = filter == null || filter.isEmpty();
+        return toSliceResponse(bookRepository.findSummariesSlice(toSpecification(filter, user), pageable),
+                bookMapper::toBookResponse,
+                approximateTotal && unfiltered ? approximateCountRepository.countDisplayableBooks(user.getId()) : null);
+    }
+
+    public SliceResponse<BookResponse> findAllBooksByOwnerSlice(int page, int size, boolean approximateTotal, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return toSliceResponse(bookRepository.findSummariesSlice(withOwnerId(user.getId()), pageable),
+                bookMapper::toBookResponse,
+                approximateTotal ? approximateCountRepository.countBooksByOwner(user.getId()) : null);
+    }
+
+    public SliceResponse<BorrowedBookResponse> findAllBorrowedBooksSlice(int page, int size, boolean approximateTotal, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return toSliceResponse(bookTransactionHistoryRepository.findBorrowedBooksSlice(pageable, user.getId()),
+                bookMapper::toBorrowedBookResponse,
+                approximateTotal ? approximateCountRepository.countBorrowedBooks(user.getId()) : null);
+    }
+
+    public SliceResponse<BorrowedBookResponse> findAllReturnedBooksSlice(int page, int size, boolean approximateTotal, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return toSliceResponse(bookTransactionHistoryRepository.findReturnedBooksSlice(pageable, user.getId()),
+                bookMapper::toBorrowedBookResponse,
+                approximateTotal ? approximateCountRepository.countReturnedBooks(user.getId()) : null);
+    }
+
+    public String findAllBooksETag(int page, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return PageETag.of(user.getId(), bookRepository.findDisplayableBookStamps(pageable, user.getId()));
+    }
+
+    public String findAllBooksByOwnerETag(int page, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return PageETag.of(user.getId(), bookRepository.findBookStampsByOwner(pageable, user.getId()));
+    }
+
+    public String findAllBorrowedBooksETag(int page, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return PageETag.of(user.getId(), bookTransactionHistoryRepository.findBorrowedBookStamps(pageable, user.getId()));
+    }
+
+    public String findAllReturnedBooksETag(int page, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return PageETag.of(user.getId(), bookTransactionHistoryRepository.findReturnedBookStamps(pageable, user.getId()));
+    }
+
+    public BookFacetResponse findBookFacets(BookFilterRequest filter, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Map<String, Long> authors = new HashMap<>();
+        Map<String, Long> ratingBands = new TreeMap<>();
+        long totalElements = 0;
+        for (BookFacetCount facet : bookRepository.countFacets(toSpecification(filter, user))) {
+            totalElements += facet.count();
+            if (facet.authorName() != null) {
+                authors.merge(facet.authorName(), facet.count(), Long::sum);
+            }
+            ratingBands.merge(toRatingBand(facet.ratingBand()), facet.count(), Long::sum);
+        }
+        Map<String, Long> topAuthors = new LinkedHashMap<>();
+        authors.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_AUTHOR_FACETS)
+                .forEach(entry -> topAuthors.put(entry.getKey(), entry.getValue()));
+        return BookFacetResponse.builder()
+                .totalElements(totalElements)
+                .authors(topAuthors)
+                .ratingBands(ratingBands)
+                .build();
+    }
+
     public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, Authentication connectedUser) {
         User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAll(withOwnerId(user.getId()), pageable);
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        Page<BookSummary> books = bookRepository.findAllSummaries(withOwnerId(user.getId()), pageable);
         List<BookResponse> bookResponse = books.stream()
                 .map(bookMapper::toBookResponse)
                 .toList();
@@ -85,8 +258,8 @@ public class BookService {
 
     public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, Authentication connectedUser) {
         User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks =
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        Page<BorrowedBookSummary> allBorrowedBooks =
                 bookTransactionHistoryRepository.findAllBorrowedBooks(pageable, user.getId());
         List<BorrowedBookResponse> bookResponse =
                 allBorrowedBooks.stream()
@@ -105,8 +278,8 @@ public class BookService {
 
     public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, Authentication connectedUser) {
         User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks =
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        Page<BorrowedBookSummary> allBorrowedBooks =
                 bookTransactionHistoryRepository.findAllReturnedBooks(pageable, user.getId());
         List<BorrowedBookResponse> bookResponse =
                 allBorrowedBooks.stream()
@@ -123,92 +296,383 @@ public class BookService {
         );
     }
 
-    public Integer updateShareableStatus(Integer bookId, boolean shareable, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
+    public PageResponse<BorrowedBookResponse> findAllBorrowedBooksWithArchive(int page, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return toPageResponse(bookTransactionRecordRepository.findAllBorrowedBooks(pageable, user.getId()),
+                bookMapper::toBorrowedBookResponse);
+    }
+
+    public PageResponse<BorrowedBookResponse> findAllReturnedBooksWithArchive(int page, int size, Authentication connectedUser) {
         User user = ((User) connectedUser.getPrincipal());
-        if (!Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You are not the owner of this book");
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        return toPageResponse(bookTransactionRecordRepository.findAllReturnedBooks(pageable, user.getId()),
+                bookMapper::toBorrowedBookResponse);
+    }
+
+    public PageResponse<BookResponse> searchBooks(String query, int page, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        page = Math.max(page, 0);
+        size = Math.min(Math.max(size, 0), BookSearchIndex.MAX_PAGE_SIZE);
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search(query, user.getId(), page, size);
+        Map<Integer, Integer> rankByBookId = new HashMap<>();
+        for (int rank = 0; rank < hits.bookIds().size(); rank++) {
+            rankByBookId.put(hits.bookIds().get(rank), rank);
         }
-        book.setShareable(shareable);
-        return bookRepository.save(book).getId();
+        List<BookResponse> bookResponse = hits.bookIds().isEmpty()
+                ? List.of()
+                : bookRepository.findSummaries(withIds(hits.bookIds()), Pageable.unpaged()).stream()
+                        .sorted(Comparator.comparing(book -> rankByBookId.get(book.id())))
+                        .map(bookMapper::toBookResponse)
+                        .toList();
+        int totalPages = size <= 0 ? 0 : (int) Math.ceil((double) hits.totalHits() / size);
+        return new PageResponse<>(
+                bookResponse,
+                page,
+                size,
+                hits.totalHits(),
+                totalPages,
+                page == 0,
+                page + 1 >= totalPages
+        );
+    }
+
+    public List<BookSuggestionResponse> suggestBooks(String prefix, int limit) {
+        return bookSuggestionIndex.suggest(prefix, limit);
+    }
+
+    public List<LeaderboardEntryResponse> findLeaderboard(String kind, int size) {
+        LeaderboardKind leaderboardKind = LeaderboardKind.fromValue(kind)
+                .orElseThrow(() -> new OperationNotPermittedException("Unknown leaderboard::" + kind));
+        return bookLeaderboard.top(leaderboardKind, Math.min(size, BookLeaderboard.MAX_SIZE));
+    }
+
+    public CursorPageResponse<BookResponse> findAllBooksAfter(String after, int size, BookFilterRequest filter, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        PageCursor cursor = PageCursor.decode(after);
+        size = PageCursor.clampSize(size);
+        List<BookSummary> books = bookRepository.findSummaries(
+                toSpecification(filter, user).and(after(cursor.createdDate(), cursor.id())), PageRequest.of(0, size + 1, NEWEST_FIRST));
+        return PageCursor.toPage(books, size, book -> new PageCursor(book.createdDate(), book.id()), bookMapper::toBookResponse);
+    }
+
+    public CursorPageResponse<BookResponse> findAllBooksByOwnerAfter(String after, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        PageCursor cursor = PageCursor.decode(after);
+        size = PageCursor.clampSize(size);
+        List<BookSummary> books = bookRepository.findSummaries(
+                withOwnerId(user.getId()).and(after(cursor.createdDate(), cursor.id())), PageRequest.of(0, size + 1, NEWEST_FIRST));
+        return PageCursor.toPage(books, size, book -> new PageCursor(book.createdDate(), book.id()), bookMapper::toBookResponse);
+    }
+
+    public CursorPageResponse<BorrowedBookResponse> findAllBorrowedBooksAfter(String after, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        PageCursor cursor = PageCursor.decode(after);
+        size = PageCursor.clampSize(size);
+        List<BorrowedBookSummary> allBorrowedBooks = bookTransactionHistoryRepository.findBorrowedBooksAfter(
+                user.getId(), cursor.createdDate(), cursor.id(), PageRequest.of(0, size + 1));
+        return PageCursor.toPage(allBorrowedBooks, size, history -> new PageCursor(history.createdDate(), history.id()), bookMapper::toBorrowedBookResponse);
     }
 
+    public CursorPageResponse<BorrowedBookResponse> findAllReturnedBooksAfter(String after, int size, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        PageCursor cursor = PageCursor.decode(after);
+        size = PageCursor.clampSize(size);
+        List<BorrowedBookSummary> allReturnedBooks = bookTransactionHistoryRepository.findReturnedBooksAfter(
+                user.getId(), cursor.createdDate(), cursor.id(), PageRequest.of(0, size + 1));
+        return PageCursor.toPage(allReturnedBooks, size, history -> new PageCursor(history.createdDate(), history.id()), bookMapper::toBorrowedBookResponse);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = {BOOKS_CACHE, BOOK_ACCESS_CACHE}, key = "#bookId")
+    public Integer updateShareableStatus(Integer bookId, boolean shareable, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        bookAccessGuard.requireOwner(bookId, user);
+        bookRepository.updateShareableStatus(List.of(bookId), user.getId(), shareable, LocalDateTime.now());
+        updateIndexesAfterCommit(bookRepository.findStatusesOwnedBy(List.of(bookId), user.getId()));
+        return bookId;
+    }
+
+    @Transactional
+    public BookBulkUpdateResponse bulkUpdateShareableStatus(BookIdsRequest bookIdsRequest, boolean shareable, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Set<Integer> bookIds = new LinkedHashSet<>(bookIdsRequest.bookIds());
+        bookRepository.updateShareableStatus(bookIds, user.getId(), shareable, LocalDateTime.now());
+        return toBulkUpdateResponse(bookIds, bookRepository.findStatusesOwnedBy(bookIds, user.getId()));
+    }
+
+    @Transactional
+    public BookBulkUpdateResponse bulkUpdateArchivedStatus(BookIdsRequest bookIdsRequest, boolean archived, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Set<Integer> bookIds = new LinkedHashSet<>(bookIdsRequest.bookIds());
+        bookRepository.updateArchivedStatus(bookIds, user.getId(), archived, LocalDateTime.now());
+        return toBulkUpdateResponse(bookIds, bookRepository.findStatusesOwnedBy(bookIds, user.getId()));
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = {BOOKS_CACHE, BOOK_ACCESS_CACHE}, key = "#bookId")
     public Integer updateArchivedStatus(Integer bookId, boolean archived, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
         User user = ((User) connectedUser.getPrincipal());
-        if (!Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You are not the owner of this book");
-        }
-        book.setArchived(archived);
-        return bookRepository.save(book).getId();
+        bookAccessGuard.requireOwner(bookId, user);
+        bookRepository.updateArchivedStatus(List.of(bookId), user.getId(), archived, LocalDateTime.now());
+        updateIndexesAfterCommit(bookRepository.findStatusesOwnedBy(List.of(bookId), user.getId()));
+        return bookId;
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = BOOKS_CACHE, key = "#bookId")
     public Integer borrowBook(Integer bookId, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
-        if (book.isArchived() || !book.isShareable()) {
+        BookAccess book = bookAccessGuard.find(bookId);
+        if (!book.isOpen()) {
             throw new OperationNotPermittedException("This book is not available for borrowing");
         }
         User user = ((User) connectedUser.getPrincipal());
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
+        if (book.isOwnedBy(user.getId())) {
             throw new OperationNotPermittedException("You are the owner of this book");
         }
-        final boolean isAlreadyBorrowed = bookTransactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId());
-        if (isAlreadyBorrowed) {
-            throw new OperationNotPermittedException("The book is already borrowed");
+        BookLoanStamp stamp = bookRepository.findLoanStampById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
+        if (stamp.loanState() != LoanState.AVAILABLE) {
+            throw new BookAlreadyBorrowedException("The book is already borrowed");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (bookRepository.borrow(bookId, stamp.version(), now, user.getId()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Book.class, bookId);
         }
         BookTransactionHistory bookTransactionHistory =
                 BookTransactionHistory.builder()
                         .user(user)
-                        .book(book)
+                        .book(bookRepository.getReferenceById(bookId))
                         .returned(false)
                         .returnApproved(false)
+                        .dueDate(now.plus(loanPeriod))
                         .build();
-        return bookTransactionHistoryRepository.save(bookTransactionHistory).getId();
+        Integer historyId;
+        try {
+            // Flushed here so a concurrent loan of the same book hits the active loan unique index inside this method
+            historyId = bookTransactionHistoryRepository.saveAndFlush(bookTransactionHistory).getId();
+        } catch (DataIntegrityViolationException exception) {
+            throw new BookAlreadyBorrowedException("The book is already borrowed");
+        }
+        appendLoanEvent(LoanEventType.BORROWED, historyId, bookId, user.getId());
+        return historyId;
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = BOOKS_CACHE, key = "#bookId")
     public Integer returnBorrowedBook(Integer bookId, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
-        if (book.isArchived() || !book.isShareable()) {
+        BookAccess book = bookAccessGuard.find(bookId);
+        if (!book.isOpen()) {
             throw new OperationNotPermittedException("This book is not available for borrowing");
         }
         User user = ((User) connectedUser.getPrincipal());
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
+        if (book.isOwnedBy(user.getId())) {
             throw new OperationNotPermittedException("You cannot borrow or return your own book");
         }
-        BookTransactionHistory bookTransactionHistory =
-                bookTransactionHistoryRepository.findByBookIdAndUserId(bookId, user.getId())
+        LocalDateTime now = LocalDateTime.now();
+        Integer historyId = bookTransactionHistoryRepository.findOpenLoanId(bookId, user.getId())
+                .filter(id -> bookTransactionHistoryRepository.markReturned(id, user.getId(), now) == 1)
                 .orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book with ID::" + bookId));
-        bookTransactionHistory.setReturned(true);
-        return bookTransactionHistoryRepository.save(bookTransactionHistory).getId();
+        bookRepository.transitionLoanState(bookId, LoanState.ON_LOAN, LoanState.RETURN_PENDING, now, user.getId());
+        appendLoanEvent(LoanEventType.RETURNED, historyId, bookId, user.getId());
+        return historyId;
     }
 
+    @Transactional
     public Integer approveReturnBorrowedBook(Integer bookId, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found::" + bookId));
-        if (book.isArchived() || !book.isShareable()) {
+        BookAccess book = bookAccessGuard.find(bookId);
+        if (!book.isOpen()) {
             throw new OperationNotPermittedException("This book is not available for borrowing");
         }
         User user = ((User) connectedUser.getPrincipal());
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You cannot borrow or return your own book");
+        if (!book.isOwnedBy(user.getId())) {
+            throw new OperationNotPermittedException("You cannot approve the return of a book you do not own");
         }
-        BookTransactionHistory bookTransactionHistory =
-                bookTransactionHistoryRepository.findByBookIdAndOwnerId(bookId, user.getId())
-                .orElseThrow(() -> new OperationNotPermittedException("The book is not returned yet with ID::" + bookId));
-        bookTransactionHistory.setReturnApproved(true);
-        return bookTransactionHistoryRepository.save(bookTransactionHistory).getId();
+        List<PendingReturn> pendingReturns = bookTransactionHistoryRepository.findPendingReturns(List.of(bookId), user.getId());
+        if (pendingReturns.isEmpty()) {
+            throw new OperationNotPermittedException("The book is not returned yet with ID::" + bookId);
+        }
+        approveReturns(Set.of(bookId), pendingReturns, user);
+        return pendingReturns.get(0).historyId();
+    }
+
+    @Transactional
+    public BookReturnApprovalResponse bulkApproveReturnBorrowedBooks(BookIdsRequest bookIdsRequest, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Set<Integer> bookIds = new LinkedHashSet<>(bookIdsRequest.bookIds());
+        return approveReturns(bookIds, bookTransactionHistoryRepository.findPendingReturns(bookIds, user.getId()), user);
+    }
+
+    @Transactional
+    public BookReturnApprovalResponse approveAllReturnBorrowedBooks(Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        List<PendingReturn> pendingReturns = bookTransactionHistoryRepository.findAllPendingReturns(
+                user.getId(), PageRequest.of(0, MAX_BULK_APPROVALS));
+        Set<Integer> bookIds = pendingReturns.stream()
+                .map(PendingReturn::bookId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return approveReturns(bookIds, pendingReturns, user);
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = BOOKS_CACHE, key = "#bookId")
     public void uploadBookCoverPicture(Integer bookId, MultipartFile file, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
         User user = ((User) connectedUser.getPrincipal());
+        bookAccessGuard.requireOwner(bookId, user);
         var bookCover = fileStorageService.saveFile(file, user.getId());
-        book.setBookCover(bookCover);
-        bookRepository.save(book);
+        bookRepository.updateBookCover(bookId, user.getId(), bookCover, computeContentHash(bookCover), LocalDateTime.now());
+    }
+
+    public BookCoverResponse findBookCover(Integer bookId) {
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID::" + bookId));
+        if (StringUtils.isBlank(book.getBookCover())) {
+            throw new EntityNotFoundException("No cover found for the book with ID::" + bookId);
+        }
+        FileSystemResource resource = new FileSystemResource(book.getBookCover());
+        if (!resource.isReadable()) {
+            throw new EntityNotFoundException("No cover found for the book with ID::" + bookId);
+        }
+        try {
+            return BookCoverResponse.builder()
+                    .resource(resource)
+                    .contentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                    .contentLength(resource.contentLength())
+                    .contentHash(book.getBookCoverHash() != null
+                            ? book.getBookCoverHash()
+                            : resource.contentLength() + "-" + resource.lastModified())
+                    .build();
+        } catch (IOException e) {
+            throw new EntityNotFoundException("No cover found for the book with ID::" + bookId);
+        }
+    }
+
+    // Statuses read back after the UPDATE, the indexes only learn about them once they are committed
+    private void updateIndexesAfterCommit(List<BookStatusSummary> books) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (BookStatusSummary book : books) {
+                    bookSearchIndex.updateStatus(book.id(), book.archived(), book.shareable());
+                    bookSuggestionIndex.updateStatus(book.id(), book.archived(), book.shareable());
+                    bookLeaderboard.updateStatus(book.id(), book.archived(), book.shareable());
+                }
+            }
+        });
+    }
+
+    private static Specification<Book> toSpecification(BookFilterRequest filter, User user) {
+        Specification<Book> specification = displayableTo(user.getId());
+        if (filter == null) {
+            return specification;
+        }
+        if (StringUtils.isNotBlank(filter.author())) {
+            specification = specification.and(withAuthorName(filter.author().trim()));
+        }
+        if (StringUtils.isNotBlank(filter.isbnPrefix())) {
+            specification = specification.and(withIsbnPrefix(filter.isbnPrefix().trim()));
+        }
+        if (filter.minRate() != null) {
+            specification = specification.and(withMinimumRate(filter.minRate()));
+        }
+        if (filter.available() != null) {
+            specification = specification.and(withAvailability(filter.available()));
+        }
+        if (filter.createdFrom() != null) {
+            specification = specification.and(createdFrom(filter.createdFrom().atStartOfDay()));
+        }
+        if (filter.createdTo() != null) {
+            specification = specification.and(createdBefore(filter.createdTo().plusDays(1).atStartOfDay()));
+        }
+        return specification;
+    }
+
+    private static <S, R> PageResponse<R> toPageResponse(Page<S> page, Function<S, R> mapper) {
+        return new PageResponse<>(
+                page.stream().map(mapper).toList(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages(),
+                page.isFirst(),
+                page.isLast()
+        );
+    }
+
+    private static <S, R> SliceResponse<R> toSliceResponse(Slice<S> slice, Function<S, R> mapper, Long approximateTotal) {
+        return new SliceResponse<>(
+                slice.stream().map(mapper).toList(),
+                slice.getNumber(),
+                slice.getSize(),
+                slice.isFirst(),
+                slice.hasNext(),
+                approximateTotal
+        );
+    }
+
+    private BookBulkUpdateResponse toBulkUpdateResponse(Set<Integer> bookIds, List<BookStatusSummary> updatedBooks) {
+        Set<Integer> applied = new HashSet<>();
+        for (BookStatusSummary book : updatedBooks) {
+            applied.add(book.id());
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Cache booksCache = cacheManager.getCache(BOOKS_CACHE);
+                Cache bookAccessCache = cacheManager.getCache(BOOK_ACCESS_CACHE);
+                for (BookStatusSummary book : updatedBooks) {
+                    booksCache.evict(book.id());
+                    bookAccessCache.evict(book.id());
+                }
+            }
+        });
+        updateIndexesAfterCommit(updatedBooks);
+        return BookBulkUpdateResponse.builder()
+                .applied(bookIds.stream().filter(applied::contains).toList())
+                .rejected(bookIds.stream().filter(bookId -> !applied.contains(bookId)).toList())
+                .build();
+    }
+
+    // Written in the caller's transaction, so the event exists if and only if the transition is committed
+    private void appendLoanEvent(LoanEventType type, Integer historyId, Integer bookId, Integer userId) {
+        loanOutboxEventRepository.save(LoanOutboxEvent.builder()
+                .type(type)
+                .historyId(historyId)
+                .bookId(bookId)
+                .userId(userId)
+                .build());
+    }
+
+    private BookReturnApprovalResponse approveReturns(Set<Integer> bookIds, List<PendingReturn> pendingReturns, User user) {
+        Set<Integer> approvedBookIds = new HashSet<>();
+        Set<Integer> handedOffBookIds = new HashSet<>();
+        if (!pendingReturns.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            bookTransactionHistoryRepository.approveReturns(
+                    pendingReturns.stream().map(PendingReturn::historyId).toList(), user.getId(), now);
+            pendingReturns.forEach(pendingReturn -> approvedBookIds.add(pendingReturn.bookId()));
+            loanOutboxEventRepository.saveAll(pendingReturns.stream()
+                    .map(pendingReturn -> LoanOutboxEvent.builder()
+                            .type(LoanEventType.RETURN_APPROVED)
+                            .historyId(pendingReturn.historyId())
+                            .bookId(pendingReturn.bookId())
+                            .userId(pendingReturn.userId())
+                            .build())
+                    .toList());
+            // Also takes the row locks that keep new reservations out until the hand-off is committed
+            bookRepository.updateLoanState(approvedBookIds, user.getId(), LoanState.RETURN_PENDING, LoanState.AVAILABLE, now);
+            handedOffBookIds.addAll(bookReservationService.handOff(approvedBookIds, user.getId()));
+            Cache booksCache = cacheManager.getCache(BOOKS_CACHE);
+            approvedBookIds.forEach(booksCache::evict);
+        }
+        return BookReturnApprovalResponse.builder()
+                .approved(bookIds.stream().filter(bookId -> approvedBookIds.contains(bookId) && !handedOffBookIds.contains(bookId)).toList())
+                .handedOff(bookIds.stream().filter(handedOffBookIds::contains).toList())
+                .rejected(bookIds.stream().filter(bookId -> !approvedBookIds.contains(bookId)).toList())
+                .build();
+    }
+
+    private static String toRatingBand(Integer lowerBound) {
+        return lowerBound == null ? "unrated" : lowerBound + "-" + (lowerBound + 1);
     }
 }
@@ -30,6 +30,20 @@ public class EmailService {
             String confirmationUrl,
             String activationCode,
             String subject
+    ) throws MessagingException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("confirmationUrl", confirmationUrl);
+        properties.put("activation_code", activationCode);
+        sendEmail(to, username, emailTemplateName, properties, subject);
+    }
+
+    @Async
+    public void sendEmail(
+            String to,
+            String username,
+            EmailTemplateName emailTemplateName,
+            Map<String, Object> templateProperties,
+            String subject
     ) throws MessagingException {
         String templateName;
         if(emailTemplateName == null) {
@@ -45,10 +59,8 @@ public class EmailService {
                 StandardCharsets.UTF_8.name()
         );
 
-        Map<String, Object> properties = new HashMap<>();
+        Map<String, Object> properties = new HashMap<>(templateProperties);
         properties.put("username", username);
-        properties.put("confirmationUrl", confirmationUrl);
-        properties.put("activation_code", activationCode);
 
         Context context = new Context();
         context.setVariables(properties);
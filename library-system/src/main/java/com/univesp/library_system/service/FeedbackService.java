@@ -1,50 +1,133 @@
 package com.univesp.library_system.service;
 
 import com.univesp.library_system.controller.request.FeedbackRequest;
+import com.univesp.library_system.controller.response.CursorPageResponse;
 import com.univesp.library_system.controller.response.FeedbackResponse;
+import com.univesp.library_system.controller.response.FeedbackSummaryResponse;
 import com.univesp.library_system.controller.response.PageResponse;
+import com.univesp.library_system.controller.response.SliceResponse;
 import com.univesp.library_system.domain.Book;
 import com.univesp.library_system.domain.Feedback;
 import com.univesp.library_system.domain.User;
 import com.univesp.library_system.handler.OperationNotPermittedException;
+import com.univesp.library_system.repository.ApproximateCountRepository;
 import com.univesp.library_system.repository.BookRepository;
 import com.univesp.library_system.repository.FeedbackRepository;
+import com.univesp.library_system.repository.projection.BookAccess;
+import com.univesp.library_system.repository.projection.RatingSummary;
+import com.univesp.library_system.service.FeedbackWriteBehindBuffer.PendingFeedback;
 import com.univesp.library_system.service.mapper.FeedbackMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.univesp.library_system.config.CacheConfig.BOOKS_CACHE;
 
 @Service
 @RequiredArgsConstructor
 public class FeedbackService {
 
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdDate"), Sort.Order.desc("id"));
+
     private final BookRepository bookRepository;
+    private final BookAccessGuard bookAccessGuard;
     private final FeedbackRepository feedbackRepository;
     private final FeedbackMapper feedbackMapper;
+    private final ApproximateCountRepository approximateCountRepository;
+    private final Optional<FeedbackWriteBehindBuffer> feedbackWriteBehindBuffer;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
+    @CacheEvict(cacheNames = BOOKS_CACHE, key = "#feedbackRequest.bookId()")
     public Integer saveFeedback(FeedbackRequest feedbackRequest, Authentication authentication) {
-        Book book = bookRepository.findById(feedbackRequest.bookId())
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID:: " + feedbackRequest.bookId()));
-        if (book.isArchived() || !book.isShareable()) {
+        BookAccess book = bookAccessGuard.find(feedbackRequest.bookId());
+        if (!book.isOpen()) {
             throw new OperationNotPermittedException("Book is not available for feedback");
         }
         User user = (User) authentication.getPrincipal();
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
+        if (book.isOwnedBy(user.getId())) {
             throw new OperationNotPermittedException("You can't give feedback to your own book");
         }
-        Feedback feedback = feedbackMapper.toFeedback(feedbackRequest);
-        return feedbackRepository.save(feedback).getId();
+        if (feedbackWriteBehindBuffer.isPresent()) {
+            feedbackWriteBehindBuffer.get().enqueue(new PendingFeedback(
+                    book.id(), feedbackRequest.note(), feedbackRequest.comment(), user.getId()));
+            return null;
+        }
+        Feedback feedback = feedbackMapper.toFeedback(feedbackRequest, bookRepository.getReferenceById(book.id()));
+        Integer feedbackId = feedbackRepository.save(feedback).getId();
+        bookRepository.addRating(book.id(), feedback.getNote());
+        eventPublisher.publishEvent(new BookRatedEvent(book.id()));
+        return feedbackId;
+    }
+
+    public SliceResponse<FeedbackResponse> findAllFeedbacksByBookSlice(
+            Integer bookId, Integer page, Integer size, boolean approximateTotal, Authentication authentication) {
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        User user = (User) authentication.getPrincipal();
+        Slice<Feedback> feedbacks = feedbackRepository.findSliceByBookId(bookId, pageable);
+        List<FeedbackResponse> feedbackResponses = feedbacks.stream()
+                .map(f -> feedbackMapper.toFeedbackResponse(f, user.getId()))
+                .toList();
+        return new SliceResponse<>(
+                feedbackResponses,
+                feedbacks.getNumber(),
+                feedbacks.getSize(),
+                feedbacks.isFirst(),
+                feedbacks.hasNext(),
+                approximateTotal ? approximateCountRepository.countFeedbacksByBook(bookId) : null
+        );
+    }
+
+    public CursorPageResponse<FeedbackResponse> findAllFeedbacksByBookAfter(
+            Integer bookId, String after, int size, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        PageCursor cursor = PageCursor.decode(after);
+        size = PageCursor.clampSize(size);
+        List<Feedback> feedbacks = feedbackRepository.findByBookIdAfter(
+                bookId, cursor.createdDate(), cursor.id(), PageRequest.of(0, size + 1));
+        return PageCursor.toPage(feedbacks, size, feedback -> new PageCursor(feedback.getCreatedDate(), feedback.getId()),
+                feedback -> feedbackMapper.toFeedbackResponse(feedback, user.getId()));
+    }
+
+    public FeedbackSummaryResponse findFeedbackSummary(Integer bookId) {
+        RatingSummary summary = bookRepository.findRatingSummary(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID:: " + bookId));
+        Map<String, Integer> ratingBands = new LinkedHashMap<>();
+        ratingBands.put("0-1", summary.ratingBand0());
+        ratingBands.put("1-2", summary.ratingBand1());
+        ratingBands.put("2-3", summary.ratingBand2());
+        ratingBands.put("3-4", summary.ratingBand3());
+        ratingBands.put("4-5", summary.ratingBand4());
+        return FeedbackSummaryResponse.builder()
+                .bookId(summary.bookId())
+                .feedbackCount(summary.ratingCount() == null ? 0 : summary.ratingCount())
+                .rate(Book.computeRate(summary.ratingSum(), summary.ratingCount()))
+                .ratingBands(ratingBands)
+                .build();
+    }
+
+    public String findAllFeedbacksByBookETag(Integer bookId, Integer page, Integer size, Authentication authentication) {
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+        User user = (User) authentication.getPrincipal();
+        return PageETag.of(user.getId(), feedbackRepository.findStampsByBookId(bookId, pageable));
     }
 
     public PageResponse<FeedbackResponse> findAllFeedbacksByBook(Integer bookId, Integer page, Integer size, Authentication authentication) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
         User user = (User) authentication.getPrincipal();
         Page<Feedback> feedbacks = feedbackRepository.findAllByBookId(bookId, pageable);
         List<FeedbackResponse> feedbackResponses = feedbacks.stream()
@@ -0,0 +1,226 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.Feedback;
+import com.univesp.library_system.handler.FeedbackQueueFullException;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.FeedbackRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import static com.univesp.library_system.config.CacheConfig.BOOKS_CACHE;
+
+// Feedback still queued when the process dies is lost
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.feedback.write-behind.enabled", havingValue = "true")
+public class FeedbackWriteBehindBuffer {
+
+    private static final long STOP_CHECK_MS = 100;
+
+    private final FeedbackRepository feedbackRepository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.feedback.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${application.feedback.write-behind.batch-size:500}")
+    private int batchSize;
+    @Value("${application.feedback.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+    @Value("${application.feedback.write-behind.retry-attempts:3}")
+    private int retryAttempts;
+    @Value("${application.feedback.write-behind.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    // Producers share the read lock, stop() takes the write lock so no offer lands after the final drain
+    private final ReentrantReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private BlockingQueue<PendingFeedback> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::drain, "feedback-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void enqueue(PendingFeedback feedback) {
+        stopLock.readLock().lock();
+        try {
+            if (!running || !queue.offer(feedback)) {
+                throw new FeedbackQueueFullException("Feedback is not accepted right now, try again shortly");
+            }
+        } finally {
+            stopLock.readLock().unlock();
+        }
+    }
+
+    // Runs before the entity manager factory and the data source are closed, both are dependencies of this bean
+    @PreDestroy
+    void stop() throws InterruptedException {
+        stopLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+        worker.join(30_000);
+        List<PendingFeedback> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining.clear();
+        }
+        log.info("Feedback write-behind stopped");
+    }
+
+    private void drain() {
+        List<PendingFeedback> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingFeedback first = queue.poll(STOP_CHECK_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (running && batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    PendingFeedback next = queue.poll(
+                            Math.min(remainingNanos, TimeUnit.MILLISECONDS.toNanos(STOP_CHECK_MS)), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush(batch);
+            batch.clear();
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private void flush(List<PendingFeedback> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; attempt <= retryAttempts; attempt++) {
+            try {
+                write(batch);
+                log.debug("Wrote {} feedbacks in {} ms", batch.size(), System.currentTimeMillis() - start);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not write {} queued feedbacks, attempt {} of {}", batch.size(), attempt, retryAttempts, e);
+            }
+            if (attempt < retryAttempts && !sleep(backoffMs)) {
+                break;
+            }
+            backoffMs *= 2;
+        }
+        int dropped = 0;
+        for (PendingFeedback feedback : batch) {
+            try {
+                write(List.of(feedback));
+            } catch (RuntimeException e) {
+                dropped++;
+                log.error("Dropped queued feedback {}", feedback, e);
+            }
+        }
+        log.warn("Wrote {} of {} queued feedbacks row by row", batch.size() - dropped, batch.size());
+    }
+
+    private void write(List<PendingFeedback> batch) {
+        Map<Integer, List<PendingFeedback>> byBook = batch.stream()
+                .collect(Collectors.groupingBy(PendingFeedback::bookId));
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batch.size());
+            feedbackRepository.saveAll(batch.stream()
+                    .<Feedback>map(feedback -> Feedback.builder()
+                            .note(feedback.note())
+                            .comment(feedback.comment())
+                            .book(bookRepository.getReferenceById(feedback.bookId()))
+                            .createdBy(feedback.userId())
+                            .build())
+                    .toList());
+            byBook.forEach(this::addRatings);
+            byBook.keySet().forEach(bookId -> eventPublisher.publishEvent(new BookRatedEvent(bookId)));
+        });
+        Cache books = cacheManager.getCache(BOOKS_CACHE);
+        if (books != null) {
+            byBook.keySet().forEach(books::evict);
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void addRatings(Integer bookId, List<PendingFeedback> feedbacks) {
+        double ratingSum = 0;
+        int ratingCount = 0;
+        int[] bands = new int[5];
+        for (PendingFeedback feedback : feedbacks) {
+            if (feedback.note() != null) {
+                ratingSum += feedback.note();
+                ratingCount++;
+                bands[Book.ratingBand(feedback.note())]++;
+            }
+        }
+        if (ratingCount > 0) {
+            bookRepository.addRatings(bookId, ratingSum, ratingCount, bands[0], bands[1], bands[2], bands[3], bands[4]);
+        }
+    }
+
+    public record PendingFeedback(
+            Integer bookId,
+            Double note,
+            String comment,
+            Integer userId
+    ) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.repository.BookTransactionHistoryArchiveRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoanArchiver {
+
+    private final BookTransactionHistoryArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.loan.archive-after:180d}")
+    private Duration archiveAfter;
+    @Value("${application.loan.archive-batch-size:2000}")
+    private int batchSize;
+
+    @Scheduled(cron = "${application.loan.archive-cron:0 30 3 * * *}")
+    public void archive() {
+        long start = System.currentTimeMillis();
+        LocalDateTime completedBefore = LocalDateTime.now().minus(archiveAfter);
+        archiveRepository.findArchivableMonths(completedBefore).forEach(archiveRepository::createPartition);
+        int archivedLoans = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> archiveRepository.archiveCompletedLoans(completedBefore, batchSize));
+            archivedLoans += batch;
+        } while (batch == batchSize);
+        if (archivedLoans > 0) {
+            log.info("Archived {} completed loans in {} ms", archivedLoans, System.currentTimeMillis() - start);
+        }
+    }
+}
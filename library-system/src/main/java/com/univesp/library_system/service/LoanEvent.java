@@ -0,0 +1,13 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.enums.LoanEventType;
+
+// Delivered at least once by the outbox relay, listeners must tolerate seeing the same event twice
+public record LoanEvent(
+        Integer eventId,
+        LoanEventType type,
+        Integer historyId,
+        Integer bookId,
+        Integer userId
+) {
+}
@@ -0,0 +1,49 @@
+package com.univesp.library_system.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.univesp.library_system.enums.LoanEventType;
+import com.univesp.library_system.service.leaderboard.BookLeaderboard;
+import com.univesp.library_system.service.search.BookSuggestionIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class LoanEventListener {
+
+    private static final int RECENT_EVENTS = 10_000;
+
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final BookLeaderboard bookLeaderboard;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<Integer, Boolean> appliedEventIds = Caffeine.newBuilder()
+            .maximumSize(RECENT_EVENTS)
+            .build();
+
+    // The relay redelivers an event when its batch fails to commit, the borrow counts must not see it twice
+    @EventListener
+    public void onLoanEvent(LoanEvent event) {
+        if (appliedEventIds.asMap().putIfAbsent(event.eventId(), Boolean.TRUE) != null) {
+            meterRegistry.counter("library.loan.events.duplicate", "type", event.type().name()).increment();
+            return;
+        }
+        try {
+            apply(event);
+        } catch (RuntimeException e) {
+            appliedEventIds.invalidate(event.eventId());
+            throw e;
+        }
+    }
+
+    private void apply(LoanEvent event) {
+        meterRegistry.counter("library.loan.events", "type", event.type().name()).increment();
+        if (event.type() == LoanEventType.BORROWED) {
+            bookSuggestionIndex.recordBorrow(event.bookId());
+            bookLeaderboard.recordBorrow(event.bookId());
+        }
+    }
+}
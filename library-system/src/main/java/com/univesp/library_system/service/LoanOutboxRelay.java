@@ -0,0 +1,84 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.domain.LoanOutboxEvent;
+import com.univesp.library_system.repository.LoanOutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoanOutboxRelay {
+
+    private final LoanOutboxEventRepository loanOutboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.outbox.batch-size:500}")
+    private int batchSize;
+    @Value("${application.outbox.max-attempts:5}")
+    private int maxAttempts;
+    @Value("${application.outbox.retention:7d}")
+    private Duration retention;
+
+    @Scheduled(fixedDelayString = "${application.outbox.relay-delay-ms:1000}")
+    public void relay() {
+        int lastId = 0;
+        List<LoanOutboxEvent> batch;
+        do {
+            int afterId = lastId;
+            batch = transactionTemplate.execute(status -> dispatchBatch(afterId));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @Scheduled(cron = "${application.outbox.purge-cron:0 45 3 * * *}")
+    public void purge() {
+        LocalDateTime dispatchedBefore = LocalDateTime.now().minus(retention);
+        int purgedEvents = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status ->
+                    loanOutboxEventRepository.deleteDispatchedBefore(dispatchedBefore, batchSize));
+            purgedEvents += batch;
+        } while (batch == batchSize);
+        if (purgedEvents > 0) {
+            log.info("Purged {} dispatched loan events", purgedEvents);
+        }
+    }
+
+    private List<LoanOutboxEvent> dispatchBatch(int afterId) {
+        List<LoanOutboxEvent> events = loanOutboxEventRepository.findPendingEventsAfter(
+                maxAttempts, afterId, PageRequest.of(0, batchSize));
+        LocalDateTime now = LocalDateTime.now();
+        for (LoanOutboxEvent event : events) {
+            try {
+                eventPublisher.publishEvent(new LoanEvent(
+                        event.getId(), event.getType(), event.getHistoryId(), event.getBookId(), event.getUserId()));
+                event.setDispatchedDate(now);
+            } catch (RuntimeException exception) {
+                event.setAttempts(event.getAttempts() + 1);
+                log.warn("Could not dispatch the loan event {}, attempt {} of {}",
+                        event.getId(), event.getAttempts(), maxAttempts, exception);
+                if (event.getAttempts() >= maxAttempts) {
+                    meterRegistry.counter("library.loan.outbox.exhausted", "type", event.getType().name()).increment();
+                }
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,88 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import com.univesp.library_system.repository.projection.OverdueLoan;
+import jakarta.mail.MessagingException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+import static com.univesp.library_system.enums.EmailTemplateName.LOAN_OVERDUE;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OverdueLoanSweeper {
+
+    private static final LocalDateTime FIRST_DUE_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailService emailService;
+
+    @Value("${application.loan.overdue-batch-size:2000}")
+    private int batchSize;
+    @Value("${application.mailing.frontend.borrowed-books-url}")
+    private String borrowedBooksUrl;
+
+    @Scheduled(cron = "${application.loan.overdue-sweep-cron:0 0 * * * *}")
+    public void sweep() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lastDueDate = FIRST_DUE_DATE;
+        int lastId = 0;
+        int overdueLoans = 0;
+        List<OverdueLoan> batch;
+        do {
+            batch = markBatch(now, lastDueDate, lastId);
+            batch.forEach(this::sendReminder);
+            overdueLoans += batch.size();
+            if (!batch.isEmpty()) {
+                OverdueLoan last = batch.get(batch.size() - 1);
+                lastDueDate = last.dueDate();
+                lastId = last.id();
+            }
+        } while (batch.size() == batchSize);
+        if (overdueLoans > 0) {
+            log.info("Flagged {} overdue loans in {} ms", overdueLoans, System.currentTimeMillis() - start);
+        }
+    }
+
+    private List<OverdueLoan> markBatch(LocalDateTime now, LocalDateTime lastDueDate, int lastId) {
+        return transactionTemplate.execute(status -> {
+            List<OverdueLoan> loans = bookTransactionHistoryRepository.findOverdueLoansAfter(
+                    now, lastDueDate, lastId, PageRequest.of(0, batchSize));
+            if (!loans.isEmpty()) {
+                bookTransactionHistoryRepository.markOverdue(loans.stream().map(OverdueLoan::id).toList(), now);
+            }
+            return loans;
+        });
+    }
+
+    private void sendReminder(OverdueLoan loan) {
+        try {
+            emailService.sendEmail(
+                    loan.borrowerEmail(),
+                    loan.borrowerName(),
+                    LOAN_OVERDUE,
+                    Map.of(
+                            "bookTitle", loan.bookTitle(),
+                            "dueDate", loan.dueDate().format(DateTimeFormatter.ISO_LOCAL_DATE),
+                            "confirmationUrl", borrowedBooksUrl
+                    ),
+                    "Your borrowed book is overdue"
+            );
+        } catch (MessagingException exception) {
+            log.warn("Could not remind {} about the overdue loan {}", loan.borrowerEmail(), loan.id());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.controller.response.CursorPageResponse;
+import com.univesp.library_system.handler.OperationNotPermittedException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+public record PageCursor(
+        LocalDateTime createdDate,
+        Integer id
+) {
+
+    public static final int MAX_SIZE = 100;
+    private static final PageCursor START = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Integer.MAX_VALUE);
+    private static final String SEPARATOR = "|";
+
+    public static PageCursor decode(String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            return START;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.lastIndexOf(SEPARATOR);
+            return new PageCursor(
+                    LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                    Integer.valueOf(decoded.substring(separatorIndex + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new OperationNotPermittedException("Invalid page cursor::" + cursor);
+        }
+    }
+
+    public static int clampSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_SIZE);
+    }
+
+    public static <E, R> CursorPageResponse<R> toPage(
+            List<E> rows,
+            int size,
+            Function<E, PageCursor> cursorOf,
+            Function<E, R> mapper
+    ) {
+        boolean last = rows.size() <= size;
+        List<E> pageRows = last ? rows : rows.subList(0, size);
+        List<R> content = pageRows.stream()
+                .map(mapper)
+                .toList();
+        String nextCursor = last ? null : cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode();
+        return new CursorPageResponse<>(content, size, nextCursor, last);
+    }
+
+    public String encode() {
+        String raw = createdDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,39 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.repository.projection.VersionStamp;
+import org.springframework.data.domain.Page;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class PageETag {
+
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + Long.BYTES;
+    private static final int STAMP_BYTES = 2 * Integer.BYTES;
+    private static final int ETAG_BYTES = 16;
+
+    private PageETag() {
+    }
+
+    public static String of(Integer userId, Page<VersionStamp> stamps) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + stamps.getNumberOfElements() * STAMP_BYTES)
+                .putInt(userId)
+                .putInt(stamps.getNumber())
+                .putInt(stamps.getSize())
+                .putLong(stamps.getTotalElements());
+        stamps.forEach(stamp -> buffer
+                .putInt(stamp.id())
+                .putInt(stamp.version() == null ? 0 : stamp.version()));
+        return "\"" + HexFormat.of().formatHex(sha256().digest(buffer.array()), 0, ETAG_BYTES) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
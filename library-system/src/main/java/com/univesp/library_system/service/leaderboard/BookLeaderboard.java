@@ -0,0 +1,240 @@
+package com.univesp.library_system.service.leaderboard;
+
+import com.univesp.library_system.controller.response.LeaderboardEntryResponse;
+import com.univesp.library_system.domain.BookLeaderboardCheckpoint;
+import com.univesp.library_system.enums.LeaderboardKind;
+import com.univesp.library_system.repository.BookLeaderboardCheckpointRepository;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.projection.RatingSummary;
+import com.univesp.library_system.service.BookRatedEvent;
+import com.univesp.library_system.service.leaderboard.TopKScores.Entry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+// Forward decay: a borrow at t weighs exp(λ(t - landmark)) and is divided by exp(λ(now - landmark)) on read
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookLeaderboard {
+
+    public static final int MAX_SIZE = 100;
+    private static final double MAX_LANDMARK_AGE = 20;
+
+    private final BookRepository bookRepository;
+    private final BookLeaderboardCheckpointRepository bookLeaderboardCheckpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.leaderboard.capacity:1000}")
+    private int capacity;
+    @Value("${application.leaderboard.trending-half-life:3d}")
+    private Duration trendingHalfLife;
+    @Value("${application.leaderboard.rating-prior-count:5}")
+    private double ratingPriorCount;
+    @Value("${application.leaderboard.rating-prior-mean:3.0}")
+    private double ratingPriorMean;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private TopKScores trending;
+    private TopKScores topRated;
+    private final Set<Integer> hiddenBookIds = new HashSet<>();
+    private Instant landmark;
+    private double decayPerSecond;
+    private boolean restored;
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    void init() {
+        trending = new TopKScores(capacity);
+        topRated = new TopKScores(capacity);
+        decayPerSecond = Math.log(2) / trendingHalfLife.toSeconds();
+        landmark = Instant.now();
+        snapshot = new Snapshot(landmark, List.of(), List.of());
+    }
+
+    public List<LeaderboardEntryResponse> top(LeaderboardKind kind, int size) {
+        Snapshot current = snapshot;
+        List<Entry> entries = kind == LeaderboardKind.TRENDING ? current.trending() : current.topRated();
+        double factor = kind == LeaderboardKind.TRENDING ? decay(current.landmark(), Instant.now()) : 1;
+        return IntStream.range(0, Math.min(size, entries.size()))
+                .mapToObj(index -> LeaderboardEntryResponse.builder()
+                        .rank(index + 1)
+                        .bookId(entries.get(index).bookId())
+                        .score(Math.round(entries.get(index).score() * factor * 100.0) / 100.0)
+                        .build())
+                .toList();
+    }
+
+    public void recordBorrow(Integer bookId) {
+        recordBorrow(bookId, Instant.now());
+    }
+
+    void recordBorrow(Integer bookId, Instant borrowedAt) {
+        lock.lock();
+        try {
+            double age = decayPerSecond * secondsBetween(landmark, borrowedAt);
+            if (age > MAX_LANDMARK_AGE) {
+                trending.scale(Math.exp(-age));
+                landmark = borrowedAt;
+                age = 0;
+            }
+            trending.add(bookId, Math.exp(age));
+            publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // After the commit, so the summary read here already counts the new ratings
+    @Async
+    @TransactionalEventListener
+    public void onBookRated(BookRatedEvent event) {
+        bookRepository.findRatingSummary(event.bookId()).ifPresent(summary -> {
+            lock.lock();
+            try {
+                topRated.put(summary.bookId(), ratingScore(summary));
+                publish();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public void updateStatus(Integer bookId, boolean archived, boolean shareable) {
+        lock.lock();
+        try {
+            boolean changed = !archived && shareable
+                    ? hiddenBookIds.remove(bookId)
+                    : (trending.contains(bookId) || topRated.contains(bookId)) && hiddenBookIds.add(bookId);
+            if (changed) {
+                publish();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        long start = System.currentTimeMillis();
+        List<BookLeaderboardCheckpoint> trendingRows =
+                bookLeaderboardCheckpointRepository.findDisplayableByKind(LeaderboardKind.TRENDING);
+        List<BookLeaderboardCheckpoint> topRatedRows =
+                bookLeaderboardCheckpointRepository.findDisplayableByKind(LeaderboardKind.TOP_RATED);
+        List<RatingSummary> seed = topRatedRows.isEmpty()
+                ? bookRepository.findTopRated(
+                        ratingPriorCount * ratingPriorMean, ratingPriorCount, PageRequest.of(0, capacity))
+                : List.of();
+        lock.lock();
+        try {
+            Instant now = Instant.now();
+            trending.clear();
+            topRated.clear();
+            hiddenBookIds.clear();
+            landmark = now;
+            for (BookLeaderboardCheckpoint row : trendingRows) {
+                double factor = decay(toInstant(row.getCheckpointDate()), now);
+                trending.restore(new Entry(row.getBookId(), row.getScore() * factor, row.getError() * factor));
+            }
+            topRatedRows.forEach(row -> topRated.restore(new Entry(row.getBookId(), row.getScore(), row.getError())));
+            seed.forEach(summary -> topRated.put(summary.bookId(), ratingScore(summary)));
+            restored = true;
+            publish();
+        } finally {
+            lock.unlock();
+        }
+        log.info("Restored {} trending and {} top rated books in {} ms",
+                trendingRows.size(), topRatedRows.size() + seed.size(), System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${application.leaderboard.checkpoint-delay-ms:300000}",
+            initialDelayString = "${application.leaderboard.checkpoint-delay-ms:300000}"
+    )
+    public void checkpoint() {
+        List<Entry> trendingEntries;
+        List<Entry> topRatedEntries;
+        double factor;
+        LocalDateTime now = LocalDateTime.now();
+        lock.lock();
+        try {
+            if (!restored) {
+                return;
+            }
+            hiddenBookIds.removeIf(bookId -> !trending.contains(bookId) && !topRated.contains(bookId));
+            trendingEntries = trending.entries();
+            topRatedEntries = topRated.entries();
+            factor = decay(landmark, toInstant(now));
+        } finally {
+            lock.unlock();
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            save(LeaderboardKind.TRENDING, trendingEntries, factor, now);
+            save(LeaderboardKind.TOP_RATED, topRatedEntries, 1, now);
+        });
+        log.debug("Saved {} trending and {} top rated books", trendingEntries.size(), topRatedEntries.size());
+    }
+
+    @PreDestroy
+    void checkpointOnShutdown() {
+        checkpoint();
+    }
+
+    private void save(LeaderboardKind kind, List<Entry> entries, double factor, LocalDateTime checkpointDate) {
+        bookLeaderboardCheckpointRepository.deleteByKind(kind);
+        bookLeaderboardCheckpointRepository.saveAll(entries.stream()
+                .map(entry -> BookLeaderboardCheckpoint.builder()
+                        .kind(kind)
+                        .bookId(entry.bookId())
+                        .score(entry.score() * factor)
+                        .error(entry.error() * factor)
+                        .checkpointDate(checkpointDate)
+                        .build())
+                .toList());
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(landmark, trending.top(MAX_SIZE, hiddenBookIds), topRated.top(MAX_SIZE, hiddenBookIds));
+    }
+
+    private double ratingScore(RatingSummary summary) {
+        double ratingSum = summary.ratingSum() == null ? 0 : summary.ratingSum();
+        int ratingCount = summary.ratingCount() == null ? 0 : summary.ratingCount();
+        return (ratingSum + ratingPriorCount * ratingPriorMean) / (ratingCount + ratingPriorCount);
+    }
+
+    private double decay(Instant from, Instant to) {
+        return Math.exp(-decayPerSecond * secondsBetween(from, to));
+    }
+
+    private static double secondsBetween(Instant from, Instant to) {
+        return Duration.between(from, to).toMillis() / 1000.0;
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private record Snapshot(Instant landmark, List<Entry> trending, List<Entry> topRated) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.univesp.library_system.service.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Space-Saving top k, a score is an upper bound off by at most its error. Not thread safe
+class TopKScores {
+
+    private static final Comparator<Entry> BY_SCORE = Comparator
+            .comparingDouble(Entry::score).reversed()
+            .thenComparing(Entry::bookId);
+
+    private final int capacity;
+    private final Map<Integer, Entry> entriesByBook = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(BY_SCORE);
+
+    TopKScores(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(Integer bookId, double weight) {
+        Entry entry = entriesByBook.get(bookId);
+        if (entry != null) {
+            replace(entry, new Entry(bookId, entry.score() + weight, entry.error()));
+        } else if (entriesByBook.size() < capacity) {
+            insert(new Entry(bookId, weight, 0));
+        } else {
+            Entry lowest = ranking.pollLast();
+            entriesByBook.remove(lowest.bookId());
+            insert(new Entry(bookId, lowest.score() + weight, lowest.score()));
+        }
+    }
+
+    void put(Integer bookId, double score) {
+        Entry entry = entriesByBook.get(bookId);
+        if (entry != null) {
+            replace(entry, new Entry(bookId, score, 0));
+        } else if (entriesByBook.size() < capacity) {
+            insert(new Entry(bookId, score, 0));
+        } else if (score > ranking.last().score()) {
+            entriesByBook.remove(ranking.pollLast().bookId());
+            insert(new Entry(bookId, score, 0));
+        }
+    }
+
+    void restore(Entry entry) {
+        remove(entry.bookId());
+        insert(entry);
+        if (entriesByBook.size() > capacity) {
+            entriesByBook.remove(ranking.pollLast().bookId());
+        }
+    }
+
+    void remove(Integer bookId) {
+        Entry entry = entriesByBook.remove(bookId);
+        if (entry != null) {
+            ranking.remove(entry);
+        }
+    }
+
+    void scale(double factor) {
+        List<Entry> scaled = ranking.stream()
+                .map(entry -> new Entry(entry.bookId(), entry.score() * factor, entry.error() * factor))
+                .toList();
+        clear();
+        scaled.forEach(this::insert);
+    }
+
+    void clear() {
+        entriesByBook.clear();
+        ranking.clear();
+    }
+
+    boolean contains(Integer bookId) {
+        return entriesByBook.containsKey(bookId);
+    }
+
+    List<Entry> top(int size, Set<Integer> excluded) {
+        List<Entry> top = new ArrayList<>(Math.min(size, ranking.size()));
+        for (Entry entry : ranking) {
+            if (top.size() == size) {
+                break;
+            }
+            if (!excluded.contains(entry.bookId())) {
+                top.add(entry);
+            }
+        }
+        return top;
+    }
+
+    List<Entry> entries() {
+        return List.copyOf(ranking);
+    }
+
+    private void replace(Entry previous, Entry entry) {
+        ranking.remove(previous);
+        insert(entry);
+    }
+
+    private void insert(Entry entry) {
+        entriesByBook.put(entry.bookId(), entry);
+        ranking.add(entry);
+    }
+
+    record Entry(Integer bookId, double score, double error) {
+    }
+}
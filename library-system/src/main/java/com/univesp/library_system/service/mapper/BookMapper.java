@@ -4,11 +4,12 @@ import com.univesp.library_system.controller.request.BookRequest;
 import com.univesp.library_system.controller.response.BookResponse;
 import com.univesp.library_system.controller.response.BorrowedBookResponse;
 import com.univesp.library_system.domain.Book;
-import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.repository.projection.BookSearchDocument;
+import com.univesp.library_system.repository.projection.BookSummary;
+import com.univesp.library_system.repository.projection.BorrowedBookSummary;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
-import static com.univesp.library_system.service.serviceimpl.FileUtils.readFileFromLocation;
-
 @Service
 public class BookMapper {
 
@@ -21,33 +22,60 @@ public class BookMapper {
                 .synopsis(bookRequest.synopsis())
                 .archived(false)
                 .shareable(bookRequest.shareable())
+                .ratingSum(0.0)
+                .ratingCount(0)
                 .build();
     }
 
-    public BookResponse toBookResponse(Book book) {
+    public BookResponse toBookResponse(BookSummary book) {
         return BookResponse.builder()
-                .id(book.getId())
-                .title(book.getTitle())
-                .isbn(book.getIsbn())
-                .authorName(book.getAuthorName())
-                .synopsis(book.getSynopsis())
-                .ownerName(book.getOwner().getFullName())
-                .cover(readFileFromLocation(book.getBookCover()))
-                .rate(book.getRate())
-                .archived(book.isArchived())
-                .shareable(book.isShareable())
+                .id(book.id())
+                .title(book.title())
+                .isbn(book.isbn())
+                .authorName(book.authorName())
+                .synopsis(book.synopsis())
+                .ownerName(book.ownerName())
+                .coverUrl(toCoverUrl(book.id(), book.bookCover(), book.bookCoverHash()))
+                .coverHash(book.bookCoverHash())
+                .rate(Book.computeRate(book.ratingSum(), book.ratingCount()))
+                .archived(book.archived())
+                .shareable(book.shareable())
+                .loanState(book.loanState())
                 .build();
     }
 
-    public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory history) {
+    public BorrowedBookResponse toBorrowedBookResponse(BorrowedBookSummary history) {
         return BorrowedBookResponse.builder()
-                .id(history.getBook().getId())
-                .title(history.getBook().getTitle())
-                .authorName(history.getBook().getAuthorName())
-                .isbn(history.getBook().getIsbn())
-                .rate(history.getBook().getRate())
-                .returned(history.isReturned())
-                .returnApproved(history.isReturnApproved())
+                .id(history.bookId())
+                .title(history.title())
+                .authorName(history.authorName())
+                .isbn(history.isbn())
+                .rate(Book.computeRate(history.ratingSum(), history.ratingCount()))
+                .returned(history.returned())
+                .returnApproved(history.returnApproved())
+                .dueDate(history.dueDate())
+                .overdue(history.overdue())
                 .build();
     }
+
+    public String toCoverUrl(Integer bookId, String bookCover, String bookCoverHash) {
+        if (StringUtils.isBlank(bookCover)) {
+            return null;
+        }
+        String coverUrl = "/books/" + bookId + "/cover";
+        return bookCoverHash == null ? coverUrl : coverUrl + "?v=" + bookCoverHash;
+    }
+
+    public BookSearchDocument toSearchDocument(Book book) {
+        return new BookSearchDocument(
+                book.getId(),
+                book.getOwner().getId(),
+                book.getTitle(),
+                book.getAuthorName(),
+                book.getIsbn(),
+                book.getSynopsis(),
+                book.isArchived(),
+                book.isShareable()
+        );
+    }
 }
@@ -12,15 +12,11 @@ import java.util.Objects;
 @Service
 public class FeedbackMapper {
 
-    public Feedback toFeedback(FeedbackRequest feedbackRequest) {
+    public Feedback toFeedback(FeedbackRequest feedbackRequest, Book book) {
         return Feedback.builder()
                 .note(feedbackRequest.note())
                 .comment(feedbackRequest.comment())
-                .book(Book.builder()
-                        .id(feedbackRequest.bookId())
-                        .archived(false) // Not required and has no impact :: just to justify lombok
-                        .shareable(false) // Not required and has no impact :: just to justify lombok
-                        .build())
+                .book(book)
                 .build();
     }
 
@@ -0,0 +1,245 @@
+package com.univesp.library_system.service.search;
+
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.projection.BookSearchDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int ISBN_WEIGHT = 2;
+    private static final int SYNOPSIS_WEIGHT = 1;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Integer> ordinalsByBookId = new HashMap<>();
+    private final List<IndexedBook> books = new ArrayList<>();
+    private final Map<String, Postings> postingsByTerm = new HashMap<>();
+    private long totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int lastId = 0;
+        int indexedBooks = 0;
+        List<BookSearchDocument> batch;
+        do {
+            batch = bookRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            batch.forEach(this::index);
+            indexedBooks += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).id();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("Indexed {} books for search in {} ms", indexedBooks, System.currentTimeMillis() - start);
+    }
+
+    public void index(BookSearchDocument document) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, TextAnalyzer.tokenize(document.title()), TITLE_WEIGHT);
+        addTerms(frequencies, TextAnalyzer.tokenize(document.authorName()), AUTHOR_WEIGHT);
+        addTerms(frequencies, TextAnalyzer.tokenize(document.isbn()), ISBN_WEIGHT);
+        addTerms(frequencies, List.of(TextAnalyzer.compactIsbn(document.isbn())), ISBN_WEIGHT);
+        addTerms(frequencies, TextAnalyzer.tokenize(document.synopsis()), SYNOPSIS_WEIGHT);
+        frequencies.remove("");
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByBookId.get(document.id());
+            if (ordinal == null) {
+                ordinal = books.size();
+                ordinalsByBookId.put(document.id(), ordinal);
+                books.add(null);
+            } else {
+                removePostings(ordinal);
+            }
+            IndexedBook book = new IndexedBook(
+                    document.id(),
+                    document.ownerId(),
+                    frequencies.keySet().toArray(String[]::new),
+                    length
+            );
+            book.archived = document.archived();
+            book.shareable = document.shareable();
+            books.set(ordinal, book);
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postingsByTerm.computeIfAbsent(entry.getKey(), term -> new Postings())
+                        .add(ordinal, entry.getValue());
+            }
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateStatus(Integer bookId, boolean archived, boolean shareable) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByBookId.get(bookId);
+            if (ordinal != null) {
+                IndexedBook book = books.get(ordinal);
+                book.archived = archived;
+                book.shareable = shareable;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, Integer userId, int page, int size) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextAnalyzer.tokenize(query)));
+        String compactIsbn = TextAnalyzer.compactIsbn(query);
+        if (compactIsbn.length() >= 10 && !terms.contains(compactIsbn)) {
+            terms.add(compactIsbn);
+        }
+        if (terms.isEmpty()) {
+            return new SearchHits(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            int bookCount = ordinalsByBookId.size();
+            float averageLength = bookCount == 0 ? 1f : Math.max(1f, (float) totalLength / bookCount);
+            Map<Integer, Float> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings postings = postingsByTerm.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (bookCount - postings.size + 0.5) / (postings.size + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int ordinal = postings.ordinals[i];
+                    IndexedBook book = books.get(ordinal);
+                    if (!book.isVisibleTo(userId)) {
+                        continue;
+                    }
+                    float frequency = postings.frequencies[i];
+                    float normalization = K1 * (1 - B + B * book.length / averageLength);
+                    scores.merge(ordinal, idf * frequency * (K1 + 1) / (frequency + normalization), Float::sum);
+                }
+            }
+            long offset = (long) page * size;
+            if (size <= 0 || offset >= scores.size()) {
+                return new SearchHits(List.of(), scores.size());
+            }
+            int limit = (int) Math.min(offset + size, scores.size());
+            return new SearchHits(topBookIds(scores, limit, (int) offset), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Integer> topBookIds(Map<Integer, Float> scores, int limit, int offset) {
+        Comparator<Map.Entry<Integer, Float>> byScore = Map.Entry.comparingByValue();
+        PriorityQueue<Map.Entry<Integer, Float>> top = new PriorityQueue<>(limit, byScore);
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            if (top.size() < limit) {
+                top.add(entry);
+            } else if (entry.getValue() > top.peek().getValue()) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+        List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(top);
+        ranked.sort(byScore.reversed());
+        return ranked.subList(offset, ranked.size()).stream()
+                .map(entry -> books.get(entry.getKey()).bookId)
+                .toList();
+    }
+
+    private void removePostings(int ordinal) {
+        IndexedBook previous = books.get(ordinal);
+        for (String term : previous.terms) {
+            Postings postings = postingsByTerm.get(term);
+            postings.remove(ordinal);
+            if (postings.size == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
+        totalLength -= previous.length;
+    }
+
+    private static void addTerms(Map<String, Integer> frequencies, List<String> terms, int weight) {
+        terms.forEach(term -> frequencies.merge(term, weight, Integer::sum));
+    }
+
+    public record SearchHits(
+            List<Integer> bookIds,
+            long totalHits
+    ) {
+    }
+
+    private static final class IndexedBook {
+
+        private final Integer bookId;
+        private final Integer ownerId;
+        private final String[] terms;
+        private final int length;
+        private boolean archived;
+        private boolean shareable;
+
+        private IndexedBook(Integer bookId, Integer ownerId, String[] terms, int length) {
+            this.bookId = bookId;
+            this.ownerId = ownerId;
+            this.terms = terms;
+            this.length = length;
+        }
+
+        private boolean isVisibleTo(Integer userId) {
+            return !archived && shareable && !Objects.equals(ownerId, userId);
+        }
+    }
+
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        private void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        private void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    size--;
+                    ordinals[i] = ordinals[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+}
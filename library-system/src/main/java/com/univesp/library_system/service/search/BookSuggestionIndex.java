@@ -0,0 +1,427 @@
+package com.univesp.library_system.service.search;
+
+import com.univesp.library_system.controller.response.BookSuggestionResponse;
+import com.univesp.library_system.enums.SuggestionType;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import com.univesp.library_system.repository.projection.BookBorrowCount;
+import com.univesp.library_system.repository.projection.BookSearchDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSuggestionIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_DEPTH = 6;
+    private static final int MAX_WORD_STARTS = 6;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final Comparator<Suggestion> BY_POPULARITY = Comparator
+            .comparingLong((Suggestion suggestion) -> suggestion.popularity).reversed()
+            .thenComparing(suggestion -> suggestion.text);
+
+    private final BookRepository bookRepository;
+    private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final Map<Integer, IndexedBook> booksById = new HashMap<>();
+    private final Map<String, Suggestion> authorsByKey = new HashMap<>();
+    private boolean bulkLoading;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Integer, Long> borrowCounts = bookTransactionHistoryRepository.countBorrowsByBook().stream()
+                .collect(Collectors.toMap(BookBorrowCount::bookId, BookBorrowCount::borrowCount));
+        lock.writeLock().lock();
+        try {
+            bulkLoading = true;
+            int lastId = 0;
+            List<BookSearchDocument> batch;
+            do {
+                batch = bookRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (BookSearchDocument document : batch) {
+                    add(document, borrowCounts.getOrDefault(document.id(), 0L));
+                    lastId = document.id();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            recomputeAll(root);
+        } finally {
+            bulkLoading = false;
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} books for suggestions in {} ms", booksById.size(), System.currentTimeMillis() - start);
+    }
+
+    public void add(BookSearchDocument document) {
+        add(document, 0L);
+    }
+
+    public void updateStatus(Integer bookId, boolean archived, boolean shareable) {
+        lock.writeLock().lock();
+        try {
+            IndexedBook book = booksById.get(bookId);
+            if (book == null) {
+                return;
+            }
+            boolean visible = !archived && shareable;
+            if (visible && !book.visible) {
+                show(book);
+            } else if (!visible && book.visible) {
+                hide(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordBorrow(Integer bookId) {
+        lock.writeLock().lock();
+        try {
+            IndexedBook book = booksById.get(bookId);
+            if (book == null) {
+                return;
+            }
+            book.borrowCount++;
+            if (!book.visible) {
+                return;
+            }
+            book.title.popularity++;
+            promote(book.title);
+            Suggestion author = authorsByKey.get(book.authorKey);
+            if (author != null) {
+                author.popularity++;
+                promote(author);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<BookSuggestionResponse> suggest(String prefix, int limit) {
+        String foldedPrefix = normalize(prefix);
+        int maxSuggestions = Math.min(Math.max(limit, 0), MAX_SUGGESTIONS);
+        if (foldedPrefix.isEmpty() || maxSuggestions == 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < Math.min(foldedPrefix.length(), MAX_DEPTH) && node != null; i++) {
+                node = node.child(foldedPrefix.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            List<Suggestion> matches = foldedPrefix.length() <= MAX_DEPTH
+                    ? Arrays.asList(node.top)
+                    : node.entries().stream()
+                            .filter(suggestion -> suggestion.matches(foldedPrefix))
+                            .distinct()
+                            .sorted(BY_POPULARITY)
+                            .toList();
+            return matches.stream()
+                    .limit(maxSuggestions)
+                    .map(Suggestion::toResponse)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(BookSearchDocument document, long borrowCount) {
+        lock.writeLock().lock();
+        try {
+            IndexedBook previous = booksById.remove(document.id());
+            if (previous != null && previous.visible) {
+                hide(previous);
+            }
+            IndexedBook book = new IndexedBook(
+                    new Suggestion(document.title(), SuggestionType.TITLE, document.id()),
+                    normalize(document.authorName()),
+                    document.authorName(),
+                    previous == null ? borrowCount : previous.borrowCount
+            );
+            booksById.put(document.id(), book);
+            if (!document.archived() && document.shareable()) {
+                show(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void show(IndexedBook book) {
+        book.visible = true;
+        book.title.popularity = book.borrowCount;
+        insert(book.title);
+        if (book.authorKey.isEmpty()) {
+            return;
+        }
+        Suggestion author = authorsByKey.get(book.authorKey);
+        if (author == null) {
+            author = new Suggestion(book.authorName, SuggestionType.AUTHOR, null);
+            authorsByKey.put(book.authorKey, author);
+            author.books = 1;
+            author.popularity = book.borrowCount;
+            insert(author);
+        } else {
+            author.books++;
+            author.popularity += book.borrowCount;
+            refresh(author);
+        }
+    }
+
+    private void hide(IndexedBook book) {
+        book.visible = false;
+        remove(book.title);
+        Suggestion author = authorsByKey.get(book.authorKey);
+        if (author == null) {
+            return;
+        }
+        author.books--;
+        author.popularity -= book.borrowCount;
+        if (author.books == 0) {
+            authorsByKey.remove(book.authorKey);
+            remove(author);
+        } else {
+            refresh(author);
+        }
+    }
+
+    private void insert(Suggestion suggestion) {
+        for (int wordStart : suggestion.wordStarts) {
+            List<Node> path = pathOf(suggestion, wordStart, true);
+            path.get(path.size() - 1).addEntry(suggestion);
+            recompute(path);
+        }
+    }
+
+    private void remove(Suggestion suggestion) {
+        for (int wordStart : suggestion.wordStarts) {
+            List<Node> path = pathOf(suggestion, wordStart, false);
+            path.get(path.size() - 1).removeEntry(suggestion);
+            recompute(path);
+        }
+    }
+
+    private void refresh(Suggestion suggestion) {
+        for (int wordStart : suggestion.wordStarts) {
+            recompute(pathOf(suggestion, wordStart, false));
+        }
+    }
+
+    private void promote(Suggestion suggestion) {
+        for (int wordStart : suggestion.wordStarts) {
+            for (Node node : pathOf(suggestion, wordStart, false)) {
+                List<Suggestion> top = new ArrayList<>(Arrays.asList(node.top));
+                if (!top.contains(suggestion)) {
+                    top.add(suggestion);
+                }
+                top.sort(BY_POPULARITY);
+                node.top = top.stream()
+                        .limit(MAX_SUGGESTIONS)
+                        .toArray(Suggestion[]::new);
+            }
+        }
+    }
+
+    private List<Node> pathOf(Suggestion suggestion, int wordStart, boolean create) {
+        List<Node> path = new ArrayList<>(MAX_DEPTH + 1);
+        Node node = root;
+        path.add(node);
+        int end = Math.min(suggestion.folded.length(), wordStart + MAX_DEPTH);
+        for (int i = wordStart; i < end; i++) {
+            char label = suggestion.folded.charAt(i);
+            node = create ? node.childOrCreate(label) : node.child(label);
+            path.add(node);
+        }
+        return path;
+    }
+
+    private void recompute(List<Node> path) {
+        if (bulkLoading) {
+            return;
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            computeTop(node);
+            if (i > 0 && node.isEmpty()) {
+                path.get(i - 1).removeChild(node);
+            }
+        }
+    }
+
+    private void recomputeAll(Node node) {
+        for (Node child : node.children) {
+            recomputeAll(child);
+        }
+        computeTop(node);
+    }
+
+    private void computeTop(Node node) {
+        Set<Suggestion> candidates = new LinkedHashSet<>(node.entries());
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        node.top = candidates.stream()
+                .sorted(BY_POPULARITY)
+                .limit(MAX_SUGGESTIONS)
+                .toArray(Suggestion[]::new);
+    }
+
+    private static String normalize(String text) {
+        return TextAnalyzer.fold(text).replaceAll("\\s+", " ").trim();
+    }
+
+    private static final class IndexedBook {
+
+        private final Suggestion title;
+        private final String authorKey;
+        private final String authorName;
+        private long borrowCount;
+        private boolean visible;
+
+        private IndexedBook(Suggestion title, String authorKey, String authorName, long borrowCount) {
+            this.title = title;
+            this.authorKey = authorKey;
+            this.authorName = authorName;
+            this.borrowCount = borrowCount;
+        }
+    }
+
+    private static final class Suggestion {
+
+        private final String text;
+        private final SuggestionType type;
+        private final Integer bookId;
+        private final String folded;
+        private final int[] wordStarts;
+        private long popularity;
+        private int books;
+
+        private Suggestion(String text, SuggestionType type, Integer bookId) {
+            this.text = text == null ? "" : text;
+            this.type = type;
+            this.bookId = bookId;
+            this.folded = normalize(text);
+            this.wordStarts = wordStarts(folded);
+        }
+
+        private boolean matches(String foldedPrefix) {
+            for (int wordStart : wordStarts) {
+                if (folded.startsWith(foldedPrefix, wordStart)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private BookSuggestionResponse toResponse() {
+            return BookSuggestionResponse.builder()
+                    .text(text)
+                    .type(type)
+                    .bookId(bookId)
+                    .popularity(popularity)
+                    .build();
+        }
+
+        private static int[] wordStarts(String folded) {
+            int[] wordStarts = new int[MAX_WORD_STARTS];
+            int count = 0;
+            for (int i = 0; i < folded.length() && count < MAX_WORD_STARTS; i++) {
+                boolean wordStart = Character.isLetterOrDigit(folded.charAt(i))
+                        && (i == 0 || !Character.isLetterOrDigit(folded.charAt(i - 1)));
+                if (wordStart) {
+                    wordStarts[count++] = i;
+                }
+            }
+            return Arrays.copyOf(wordStarts, count);
+        }
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private List<Suggestion> entries;
+        private Suggestion[] top = NO_SUGGESTIONS;
+
+        private List<Suggestion> entries() {
+            return entries == null ? List.of() : entries;
+        }
+
+        private void addEntry(Suggestion suggestion) {
+            if (entries == null) {
+                entries = new ArrayList<>(1);
+            }
+            entries.add(suggestion);
+        }
+
+        private void removeEntry(Suggestion suggestion) {
+            if (entries != null) {
+                entries.remove(suggestion);
+            }
+        }
+
+        private Node child(char label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(char label) {
+            Node child = child(label);
+            if (child == null) {
+                child = new Node();
+                labels = Arrays.copyOf(labels, labels.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                labels[labels.length - 1] = label;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+
+        private void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    int last = children.length - 1;
+                    labels[i] = labels[last];
+                    children[i] = children[last];
+                    labels = Arrays.copyOf(labels, last);
+                    children = Arrays.copyOf(children, last);
+                    return;
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return entries().isEmpty() && children.length == 0;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+create table book_leaderboard_checkpoint (
+    book_id integer not null,
+    error float(53) not null,
+    score float(53) not null,
+    checkpoint_date timestamp(6) not null,
+    kind varchar(16) not null,
+    primary key (book_id, kind)
+);
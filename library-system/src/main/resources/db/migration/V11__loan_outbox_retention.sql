@@ -0,0 +1,4 @@
+-- Dispatched events only, the purge walks them by age and never touches the pending or exhausted ones
+CREATE INDEX idx_loan_outbox_event_dispatched
+    ON loan_outbox_event (dispatched_date)
+    WHERE dispatched_date IS NOT NULL;
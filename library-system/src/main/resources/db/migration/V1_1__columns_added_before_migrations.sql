@@ -0,0 +1,13 @@
+-- Added to the entities while ddl-auto still managed the schema, IF NOT EXISTS because such databases already have them
+ALTER TABLE book ADD COLUMN IF NOT EXISTS book_cover_hash varchar(255);
+ALTER TABLE book ADD COLUMN IF NOT EXISTS rating_count integer;
+ALTER TABLE book ADD COLUMN IF NOT EXISTS rating_sum float(53);
+
+ALTER TABLE book ADD COLUMN IF NOT EXISTS version integer DEFAULT 0;
+ALTER TABLE book_transaction_history ADD COLUMN IF NOT EXISTS version integer DEFAULT 0;
+ALTER TABLE feedback ADD COLUMN IF NOT EXISTS version integer DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_book_displayable ON book (archived, shareable, created_date);
+CREATE INDEX IF NOT EXISTS idx_book_owner_created_date ON book (owner_id, created_date);
+CREATE INDEX IF NOT EXISTS idx_book_author_name ON book (author_name);
+CREATE INDEX IF NOT EXISTS idx_book_isbn ON book (isbn);
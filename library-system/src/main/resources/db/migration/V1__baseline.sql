@@ -0,0 +1,126 @@
+-- Schema as generated by Hibernate before migrations were introduced, existing databases are baselined at this version
+create sequence __user_seq start with 1 increment by 50;
+
+create sequence book_seq start with 1 increment by 50;
+
+create sequence book_transaction_history_seq start with 1 increment by 50;
+
+create sequence feedback_seq start with 1 increment by 50;
+
+create sequence role_seq start with 1 increment by 50;
+
+create sequence token_seq start with 1 increment by 50;
+
+create table __user (
+    account_locked boolean not null,
+    birth_date date,
+    enabled boolean not null,
+    id integer not null,
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    email varchar(255) unique,
+    first_name varchar(255),
+    last_name varchar(255),
+    password varchar(255),
+    primary key (id)
+);
+
+create table __user_roles (
+    roles_id integer not null,
+    users_id integer not null
+);
+
+create table book (
+    archived boolean not null,
+    created_by integer not null,
+    id integer not null,
+    last_modified_by integer,
+    owner_id integer,
+    shareable boolean not null,
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    author_name varchar(255),
+    book_cover varchar(255),
+    isbn varchar(255),
+    synopsis varchar(255),
+    title varchar(255),
+    primary key (id)
+);
+
+create table book_transaction_history (
+    book_id integer,
+    created_by integer not null,
+    id integer not null,
+    last_modified_by integer,
+    return_approved boolean not null,
+    returned boolean not null,
+    user_id integer,
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    primary key (id)
+);
+
+create table feedback (
+    book_id integer,
+    created_by integer not null,
+    id integer not null,
+    last_modified_by integer,
+    note float(53),
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    comment varchar(255),
+    primary key (id)
+);
+
+create table role (
+    id integer not null,
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    name varchar(255) unique,
+    primary key (id)
+);
+
+create table token (
+    id integer not null,
+    user_id integer not null,
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    validated_at timestamp(6),
+    token varchar(255),
+    primary key (id)
+);
+
+alter table if exists __user_roles
+   add constraint FKe1eed9jb9f238ilayqxa6trr5
+   foreign key (roles_id)
+   references role;
+
+alter table if exists __user_roles
+   add constraint FK7nr058grgu4cdfpni926l6qeh
+   foreign key (users_id)
+   references __user;
+
+alter table if exists book
+   add constraint FKdbkjip1i556j5hi5cordr96h
+   foreign key (owner_id)
+   references __user;
+
+alter table if exists book_transaction_history
+   add constraint FKetks95hi6ay47e16sj6vdv9g9
+   foreign key (book_id)
+   references book;
+
+alter table if exists book_transaction_history
+   add constraint FKghv1alxp5s5td0lkiq50ib615
+   foreign key (user_id)
+   references __user;
+
+alter table if exists feedback
+   add constraint FKgclyi456gw0lcd6xcfj2l7r6s
+   foreign key (book_id)
+   references book;
+
+alter table if exists token
+   add constraint FK16ma8jx57pgo2j2jx7yfx3u8v
+   foreign key (user_id)
+   references __user;
@@ -0,0 +1,6 @@
+-- A book can only be on one active loan, a loan stays active until the owner approves the return.
+-- Fails if duplicated active loans already exist, find them with:
+-- SELECT book_id, COUNT(*) FROM book_transaction_history WHERE return_approved = false GROUP BY book_id HAVING COUNT(*) > 1;
+CREATE UNIQUE INDEX uk_book_transaction_history_active_loan
+    ON book_transaction_history (book_id)
+    WHERE return_approved = false;
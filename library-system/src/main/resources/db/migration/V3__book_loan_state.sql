@@ -0,0 +1,12 @@
+ALTER TABLE book ADD COLUMN loan_state varchar(16) NOT NULL DEFAULT 'AVAILABLE';
+
+UPDATE book
+SET loan_state = CASE WHEN history.returned THEN 'RETURN_PENDING' ELSE 'ON_LOAN' END
+FROM book_transaction_history history
+WHERE history.book_id = book.id
+AND history.return_approved = false;
+
+-- Only the displayable books that can be borrowed right now, in the order the catalog lists them
+CREATE INDEX idx_book_available
+    ON book (created_date DESC, id DESC)
+    WHERE loan_state = 'AVAILABLE' AND archived = false AND shareable = true;
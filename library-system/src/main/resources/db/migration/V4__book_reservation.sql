@@ -0,0 +1,27 @@
+create sequence book_reservation_seq start with 1 increment by 50;
+
+-- uk_book_reservation_ticket also serves the head, tail and position lookups of a book queue
+create table book_reservation (
+    book_id integer,
+    created_by integer not null,
+    id integer not null,
+    last_modified_by integer,
+    user_id integer,
+    version integer default 0,
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    ticket bigint not null,
+    primary key (id),
+    constraint uk_book_reservation_ticket unique (book_id, ticket),
+    constraint uk_book_reservation_user unique (book_id, user_id)
+);
+
+alter table if exists book_reservation
+   add constraint FKbged23jof7k60tviumkmoyaqf
+   foreign key (book_id)
+   references book;
+
+alter table if exists book_reservation
+   add constraint FKr6i774aq38r4oieu6p1vevgss
+   foreign key (user_id)
+   references __user;
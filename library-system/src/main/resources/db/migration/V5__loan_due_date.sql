@@ -0,0 +1,12 @@
+ALTER TABLE book_transaction_history ADD COLUMN due_date timestamp(6);
+ALTER TABLE book_transaction_history ADD COLUMN overdue boolean NOT NULL DEFAULT false;
+
+-- Open loans from before due dates existed get the default loan period
+UPDATE book_transaction_history
+SET due_date = created_date + INTERVAL '14 days'
+WHERE returned = false;
+
+-- Only open loans not flagged yet, so the overdue sweep never walks through returned or already flagged loans
+CREATE INDEX idx_book_transaction_history_due_date
+    ON book_transaction_history (due_date, id)
+    WHERE returned = false AND overdue = false;
@@ -0,0 +1,37 @@
+-- Completed loans are moved here once they are old enough, so book_transaction_history only keeps open and recent
+-- loans. The hot table itself is not partitioned: a unique index on a partitioned table must contain the partition
+-- key, which would break uk_book_transaction_history_active_loan. Monthly partitions are created by the archiver.
+create table book_transaction_history_archive (
+    book_id integer,
+    created_by integer not null,
+    id integer not null,
+    last_modified_by integer,
+    return_approved boolean not null,
+    returned boolean not null,
+    user_id integer,
+    version integer default 0,
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    due_date timestamp(6),
+    overdue boolean not null default false,
+    primary key (id, created_date)
+) partition by range (created_date);
+
+alter table if exists book_transaction_history_archive
+   add constraint fk_book_transaction_history_archive_book
+   foreign key (book_id)
+   references book;
+
+alter table if exists book_transaction_history_archive
+   add constraint fk_book_transaction_history_archive_user
+   foreign key (user_id)
+   references __user;
+
+-- Archived loans are only read through the borrowed and returned listings
+CREATE INDEX idx_book_transaction_history_archive_user ON book_transaction_history_archive (user_id);
+CREATE INDEX idx_book_transaction_history_archive_book ON book_transaction_history_archive (book_id);
+
+-- Approved loans waiting to be archived, approval is their last modification
+CREATE INDEX idx_book_transaction_history_completed
+    ON book_transaction_history (last_modified_date)
+    WHERE return_approved = true;
@@ -0,0 +1,22 @@
+create sequence loan_outbox_event_seq start with 1 increment by 50;
+
+create table loan_outbox_event (
+    attempts integer not null default 0,
+    book_id integer not null,
+    created_by integer not null,
+    history_id integer not null,
+    id integer not null,
+    last_modified_by integer,
+    user_id integer not null,
+    version integer default 0,
+    created_date timestamp(6) not null,
+    dispatched_date timestamp(6),
+    last_modified_date timestamp(6),
+    type varchar(16) not null,
+    primary key (id)
+);
+
+-- The relay only ever reads events still waiting for dispatch, in the order they were written
+CREATE INDEX idx_loan_outbox_event_pending
+    ON loan_outbox_event (id)
+    WHERE dispatched_date IS NULL;
@@ -0,0 +1,23 @@
+-- One index per repository predicate that was still answered by a sequential scan. The plain ones are also
+-- declared on the entities so ddl-auto keeps them, the partial ones only exist here. RepositoryQueryPlanTest checks
+-- every repository query against them with EXPLAIN.
+
+-- Borrowed listings filter on the borrower and list the newest loans first, including the keyset pages
+CREATE INDEX idx_book_transaction_history_user
+    ON book_transaction_history (user_id, created_date DESC, id DESC);
+
+-- Returned listings and exports reach the loans through the books of the owner
+CREATE INDEX idx_book_transaction_history_book
+    ON book_transaction_history (book_id, created_date DESC, id DESC);
+
+-- The catalog only lists displayable books, newest first. The owner_id <> ? filter excludes a handful of rows
+-- and is better applied on the way than indexed.
+DROP INDEX IF EXISTS idx_book_displayable;
+CREATE INDEX idx_book_displayable
+    ON book (created_date DESC, id DESC)
+    WHERE archived = false AND shareable = true;
+
+CREATE INDEX idx_token_token ON token (token);
+
+CREATE INDEX idx_feedback_book_created_date
+    ON feedback (book_id, created_date DESC, id DESC);
@@ -0,0 +1,24 @@
+ALTER TABLE book ADD COLUMN rating_band0 integer NOT NULL DEFAULT 0;
+ALTER TABLE book ADD COLUMN rating_band1 integer NOT NULL DEFAULT 0;
+ALTER TABLE book ADD COLUMN rating_band2 integer NOT NULL DEFAULT 0;
+ALTER TABLE book ADD COLUMN rating_band3 integer NOT NULL DEFAULT 0;
+ALTER TABLE book ADD COLUMN rating_band4 integer NOT NULL DEFAULT 0;
+
+-- Same one-star bands as the catalog facets, a note of 5 belongs to the 4-5 band
+UPDATE book
+SET rating_band0 = histogram.band0,
+    rating_band1 = histogram.band1,
+    rating_band2 = histogram.band2,
+    rating_band3 = histogram.band3,
+    rating_band4 = histogram.band4
+FROM (
+    SELECT book_id,
+           COUNT(*) FILTER (WHERE note < 1) AS band0,
+           COUNT(*) FILTER (WHERE note >= 1 AND note < 2) AS band1,
+           COUNT(*) FILTER (WHERE note >= 2 AND note < 3) AS band2,
+           COUNT(*) FILTER (WHERE note >= 3 AND note < 4) AS band3,
+           COUNT(*) FILTER (WHERE note >= 4) AS band4
+    FROM feedback
+    GROUP BY book_id
+) histogram
+WHERE histogram.book_id = book.id;
@@ -0,0 +1,16 @@
+package com.univesp.library_system;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.AuditorAware;
+
+import java.util.Optional;
+
+@TestConfiguration
+public class TestAuditConfig {
+
+    @Bean
+    AuditorAware<Integer> auditorAware() {
+        return () -> Optional.of(1);
+    }
+}
@@ -0,0 +1,42 @@
+package com.univesp.library_system;
+
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+
+// Unsaved entities for the repository and service tests, names must be unique within a test database
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    public static User user(String name) {
+        return User.builder()
+                .firstName(name)
+                .lastName("Test")
+                .email(name + "@library.test")
+                .password("secret")
+                .enabled(true)
+                .build();
+    }
+
+    // Shared, available and not rated yet
+    public static Book book(User owner) {
+        return Book.builder()
+                .title("Book")
+                .shareable(true)
+                .ratingSum(0.0)
+                .ratingCount(0)
+                .owner(owner)
+                .build();
+    }
+
+    // Same as book(owner), with the text fields set apart by index
+    public static Book book(User owner, int index) {
+        Book book = book(owner);
+        book.setTitle("Book " + index);
+        book.setAuthorName("Author " + index);
+        book.setIsbn("978-" + index);
+        book.setSynopsis("Synopsis " + index);
+        return book;
+    }
+}
@@ -0,0 +1,238 @@
+package com.univesp.library_system.repository;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.domain.ArchivedBookTransactionHistory;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.domain.Feedback;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.LoanState;
+import com.univesp.library_system.service.mapper.BookMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import com.univesp.library_system.repository.projection.BookFacetCount;
+import com.univesp.library_system.repository.projection.BookSummary;
+import com.univesp.library_system.repository.projection.BorrowedBookSummary;
+import com.univesp.library_system.repository.projection.VersionStamp;
+import com.univesp.library_system.service.PageETag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static com.univesp.library_system.domain.BookSpecification.after;
+import static com.univesp.library_system.domain.BookSpecification.displayableTo;
+import static com.univesp.library_system.domain.BookSpecification.withAvailability;
+import static com.univesp.library_system.domain.BookSpecification.withIsbnPrefix;
+import static com.univesp.library_system.domain.BookSpecification.withMinimumRate;
+import static com.univesp.library_system.domain.BookSpecification.withOwnerId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// PostgreSQL mode so grouped queries can reference select items by position, as they do in production
+@H2DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookListingQueryCountTest {
+
+    private static final int BOOKS_PER_OWNER = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    @Autowired
+    private BookTransactionRecordRepository bookTransactionRecordRepository;
+
+    private final BookMapper bookMapper = new BookMapper();
+    private User reader;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        reader = entityManager.persist(user("reader"));
+        owner = entityManager.persist(user("owner"));
+        User otherOwner = entityManager.persist(user("other"));
+        for (int i = 0; i < BOOKS_PER_OWNER; i++) {
+            Book book = ratedBook(owner, i);
+            book.setLoanState(LoanState.RETURN_PENDING);
+            entityManager.persist(book);
+            entityManager.persist(ratedBook(otherOwner, i));
+            entityManager.persist(Feedback.builder().note(4.0).comment("Good").book(book).build());
+            entityManager.persist(BookTransactionHistory.builder()
+                    .user(reader)
+                    .book(book)
+                    .returned(true)
+                    .returnApproved(false)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics().clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 25})
+    void displayableBooksPageRunsTwoQueries(int size) {
+        bookRepository.findAllSummaries(displayableTo(reader.getId()), pageOf(size))
+                .forEach(bookMapper::toBookResponse);
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 25})
+    void ownerBooksPageRunsTwoQueries(int size) {
+        bookRepository.findAllSummaries(withOwnerId(owner.getId()), pageOf(size))
+                .forEach(bookMapper::toBookResponse);
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 25})
+    void borrowedBooksPageRunsTwoQueries(int size) {
+        bookTransactionHistoryRepository.findAllBorrowedBooks(pageOf(size), reader.getId())
+                .forEach(bookMapper::toBorrowedBookResponse);
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 25})
+    void returnedBooksPageRunsTwoQueries(int size) {
+        bookTransactionHistoryRepository.findAllReturnedBooks(pageOf(size), owner.getId())
+                .forEach(bookMapper::toBorrowedBookResponse);
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void listingsReadTheArchiveOnlyOnDemand() {
+        Book book = entityManager.find(Book.class, bookRepository.findAllSummaries(withOwnerId(owner.getId()), pageOf(1))
+                .getContent().get(0).id());
+        entityManager.persist(ArchivedBookTransactionHistory.builder()
+                .id(Integer.MAX_VALUE)
+                .user(reader)
+                .book(book)
+                .returned(true)
+                .returnApproved(true)
+                .createdDate(LocalDateTime.now().minusYears(1))
+                .createdBy(reader.getId())
+                .build());
+        entityManager.flush();
+        statistics().clear();
+
+        Page<BorrowedBookSummary> withArchive = bookTransactionRecordRepository.findAllBorrowedBooks(pageOf(5), reader.getId());
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+        assertThat(withArchive.getTotalElements()).isEqualTo(BOOKS_PER_OWNER + 1);
+        assertThat(bookTransactionHistoryRepository.findAllBorrowedBooks(pageOf(5), reader.getId()).getTotalElements())
+                .isEqualTo(BOOKS_PER_OWNER);
+        assertThat(bookTransactionRecordRepository.findAllReturnedBooks(
+                PageRequest.of(0, 5, Sort.by("createdDate")), owner.getId()).getContent().get(0).id())
+                .isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 25})
+    void filteredBooksPageRunsTwoQueries(int size) {
+        Specification<Book> specification = displayableTo(reader.getId())
+                .and(withIsbnPrefix("978-"))
+                .and(withMinimumRate(3.5))
+                .and(withAvailability(false));
+
+        bookRepository.findAllSummaries(specification, pageOf(size))
+                .forEach(bookMapper::toBookResponse);
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 25})
+    void displayableBooksSliceSkipsTheCount(int size) {
+        Slice<BookSummary> books = bookRepository.findSummariesSlice(displayableTo(reader.getId()), pageOf(size));
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+        assertThat(books.getContent()).hasSize(size);
+        assertThat(books.hasNext()).isTrue();
+    }
+
+    @Test
+    void filteredKeysetPagesWalkEveryMatchingBookOnce() {
+        Specification<Book> specification = displayableTo(reader.getId()).and(withIsbnPrefix("978-1"));
+        Pageable newestFirst = PageRequest.of(0, 5, Sort.by(Sort.Order.desc("createdDate"), Sort.Order.desc("id")));
+        List<Integer> bookIds = new ArrayList<>();
+
+        List<BookSummary> books = bookRepository.findSummaries(specification, newestFirst);
+        while (!books.isEmpty()) {
+            books.forEach(book -> bookIds.add(book.id()));
+            BookSummary last = books.get(books.size() - 1);
+            books = bookRepository.findSummaries(specification.and(after(last.createdDate(), last.id())), newestFirst);
+        }
+
+        // 978-1 and 978-10 to 978-19 of both owners
+        assertThat(bookIds).hasSize(22).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void facetsRunInOneGroupedQuery() {
+        List<BookFacetCount> facets = bookRepository.countFacets(displayableTo(reader.getId()));
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+        assertThat(facets).hasSize(BOOKS_PER_OWNER)
+                .allSatisfy(facet -> assertThat(facet.ratingBand()).isEqualTo(4))
+                .extracting(BookFacetCount::count)
+                .containsOnly(2L);
+    }
+
+    @Test
+    void pageETagChangesOnlyWhenARowOnThePageChanges() {
+        Pageable firstPage = PageRequest.of(0, 5, Sort.by(Sort.Order.desc("createdDate"), Sort.Order.desc("id")));
+        Page<VersionStamp> stamps = bookRepository.findDisplayableBookStamps(firstPage, reader.getId());
+        String eTag = PageETag.of(reader.getId(), stamps);
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+        assertThat(PageETag.of(reader.getId(), bookRepository.findDisplayableBookStamps(firstPage, reader.getId())))
+                .isEqualTo(eTag);
+        assertThat(PageETag.of(owner.getId(), stamps)).isNotEqualTo(eTag);
+
+        bookRepository.addRating(stamps.getContent().get(0).id(), 5.0);
+
+        assertThat(PageETag.of(reader.getId(), bookRepository.findDisplayableBookStamps(firstPage, reader.getId())))
+                .isNotEqualTo(eTag);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static Pageable pageOf(int size) {
+        return PageRequest.of(0, size, Sort.by("createdDate").descending());
+    }
+
+    private static Book ratedBook(User owner, int index) {
+        Book book = book(owner, index);
+        book.setRatingSum(4.0);
+        book.setRatingCount(1);
+        return book;
+    }
+}
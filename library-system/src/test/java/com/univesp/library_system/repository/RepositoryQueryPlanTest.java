@@ -0,0 +1,196 @@
+package com.univesp.library_system.repository;
+
+import com.univesp.library_system.TestAuditConfig;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.univesp.library_system.domain.BookSpecification.after;
+import static com.univesp.library_system.domain.BookSpecification.displayableTo;
+import static com.univesp.library_system.domain.BookSpecification.withOwnerId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans the SQL Hibernate generates for the repository queries against a seeded PostgreSQL, with the schema built
+ * by the migrations alone, and fails when a query reads one of its tables with a sequential scan.
+ * Plans are generic (EXPLAIN GENERIC_PLAN, PostgreSQL 16), as they are for the prepared statements of the app.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.univesp.library_system.repository.RepositoryQueryPlanTest$RecordingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Import(TestAuditConfig.class)
+class RepositoryQueryPlanTest {
+
+    private static final int USERS = 2_000;
+    private static final int BOOKS = 20_000;
+    private static final int LOANS = 200_000;
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+    private static final Pageable NEWEST_FIRST = PageRequest.of(0, 10,
+            Sort.by(Sort.Order.desc("createdDate"), Sort.Order.desc("id")));
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO __user (id, account_locked, enabled, created_date, email, first_name, last_name, password)
+                SELECT g, false, true, now(), 'user' || g || '@mail.com', 'User', g::text, 'password'
+                FROM generate_series(1, ?) g
+                """, USERS);
+        jdbcTemplate.update("""
+                INSERT INTO book (id, archived, shareable, created_by, owner_id, rating_count, rating_sum, created_date,
+                                  title, author_name, isbn, loan_state)
+                SELECT g, g % 10 = 0, g % 7 <> 0, 1, g % ? + 1, 0, 0, now() - g * INTERVAL '1 minute',
+                       'Book ' || g, 'Author ' || g % 500, '978-' || g, 'AVAILABLE'
+                FROM generate_series(1, ?) g
+                """, USERS, BOOKS);
+        // One open loan per book at most, the older loans are all approved
+        jdbcTemplate.update("""
+                INSERT INTO book_transaction_history (id, book_id, user_id, created_by, returned, return_approved,
+                                                      overdue, created_date, last_modified_date, due_date)
+                SELECT g, g % ? + 1, g % ? + 1, 1, g > ?, g > ?, false, now() - g * INTERVAL '1 minute',
+                       now() - g * INTERVAL '1 minute', now() + INTERVAL '14 days' - g * INTERVAL '1 minute'
+                FROM generate_series(1, ?) g
+                """, BOOKS, USERS, BOOKS / 2, BOOKS, LOANS);
+        jdbcTemplate.update("""
+                INSERT INTO feedback (id, book_id, created_by, note, comment, created_date)
+                SELECT g, g % ? + 1, 1, 4, 'Good', now() - g * INTERVAL '1 minute'
+                FROM generate_series(1, ?) g
+                """, BOOKS, LOANS / 2);
+        jdbcTemplate.update("""
+                INSERT INTO token (id, user_id, token, created_at, expires_at)
+                SELECT g, g % ? + 1, lpad(g::text, 6, '0'), now(), now() + INTERVAL '15 minutes'
+                FROM generate_series(1, ?) g
+                """, USERS, USERS * 10);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void displayableBooksUseThePartialIndex() {
+        assertNoSequentialScan(() -> bookRepository.findAllSummaries(displayableTo(1), NEWEST_FIRST), "book");
+        assertNoSequentialScan(() -> bookRepository.findSummaries(
+                displayableTo(1).and(after(LocalDateTime.now(), Integer.MAX_VALUE)), NEWEST_FIRST), "book");
+    }
+
+    @Test
+    void booksByOwnerUseTheOwnerIndex() {
+        assertNoSequentialScan(() -> bookRepository.findAllSummaries(withOwnerId(1), NEWEST_FIRST), "book");
+    }
+
+    @Test
+    void borrowedBooksUseTheBorrowerIndex() {
+        assertNoSequentialScan(() -> bookTransactionHistoryRepository.findAllBorrowedBooks(NEWEST_FIRST, 1),
+                "book_transaction_history", "book");
+        assertNoSequentialScan(() -> bookTransactionHistoryRepository.findBorrowedBooksAfter(
+                1, LocalDateTime.now(), Integer.MAX_VALUE, PageRequest.of(0, 10)), "book_transaction_history", "book");
+    }
+
+    @Test
+    void returnedBooksReachTheLoansThroughTheOwnerBooks() {
+        assertNoSequentialScan(() -> bookTransactionHistoryRepository.findAllReturnedBooks(NEWEST_FIRST, 1),
+                "book_transaction_history", "book");
+        assertNoSequentialScan(() -> bookTransactionHistoryRepository.findPendingReturns(List.of(1, 2, 3), 1),
+                "book_transaction_history", "book");
+    }
+
+    @Test
+    void loanLookupsUseTheActiveLoanIndex() {
+        assertNoSequentialScan(() -> bookTransactionHistoryRepository.findByBookIdAndUserId(1, 1),
+                "book_transaction_history");
+        assertNoSequentialScan(() -> bookTransactionHistoryRepository.findOpenLoanId(1, 1),
+                "book_transaction_history");
+    }
+
+    @Test
+    void overdueSweepUsesTheDueDateIndex() {
+        assertNoSequentialScan(() -> bookTransactionHistoryRepository.findOverdueLoansAfter(
+                LocalDateTime.now(), LocalDateTime.of(1970, 1, 1, 0, 0), 0, PageRequest.of(0, 100)),
+                "book_transaction_history");
+    }
+
+    @Test
+    void feedbacksOfABookUseTheBookIndex() {
+        assertNoSequentialScan(() -> feedbackRepository.findAllByBookId(1, NEWEST_FIRST), "feedback");
+        assertNoSequentialScan(() -> feedbackRepository.findByBookIdAfter(
+                1, LocalDateTime.now(), Integer.MAX_VALUE, PageRequest.of(0, 10)), "feedback");
+    }
+
+    @Test
+    void tokensAreFoundByValue() {
+        assertNoSequentialScan(() -> tokenRepository.findByToken("000042"), "token");
+    }
+
+    // Only the first statement is planned, the count query of a page scans what its predicate selects anyway
+    private void assertNoSequentialScan(Runnable query, String... tables) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        query.run();
+        assertThat(RecordingStatementInspector.STATEMENTS).isNotEmpty();
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN (GENERIC_PLAN) " + numberParameters(RecordingStatementInspector.STATEMENTS.get(0)), String.class));
+        for (String table : tables) {
+            assertThat(plan).as(plan).doesNotContain("Seq Scan on " + table + " ");
+        }
+    }
+
+    // GENERIC_PLAN takes numbered parameters, Hibernate writes positional ones
+    private static String numberParameters(String sql) {
+        Matcher matcher = PARAMETER.matcher(sql);
+        StringBuilder numbered = new StringBuilder();
+        int position = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, "\\$" + ++position);
+        }
+        return matcher.appendTail(numbered).toString();
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.config.CacheConfig;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.LoanState;
+import com.univesp.library_system.handler.OperationNotPermittedException;
+import com.univesp.library_system.repository.ApproximateCountRepository;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import com.univesp.library_system.repository.UserRepository;
+import com.univesp.library_system.service.leaderboard.BookLeaderboard;
+import com.univesp.library_system.service.mapper.BookMapper;
+import com.univesp.library_system.service.search.BookSearchIndex;
+import com.univesp.library_system.service.search.BookSuggestionIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Not transactional, cache evictions only happen when the service transaction commits
+@H2DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "application.cache.book-access.expire-after-write=1h"
+})
+@Import({BookService.class, BookMapper.class, BookReservationService.class, BookAccessGuard.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookAccessGuardTest {
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookAccessGuard bookAccessGuard;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @MockBean
+    private BookSearchIndex bookSearchIndex;
+    @MockBean
+    private BookSuggestionIndex bookSuggestionIndex;
+    @MockBean
+    private BookLeaderboard bookLeaderboard;
+    @MockBean
+    private FileStorageService fileStorageService;
+    @MockBean
+    private ApproximateCountRepository approximateCountRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void aLoanRoundTripNeverLoadsTheBook() {
+        User owner = userRepository.save(user("loanOwner"));
+        User borrower = userRepository.save(user("loanBorrower"));
+        Integer bookId = bookRepository.save(book(owner)).getId();
+        statistics.clear();
+
+        Integer historyId = bookService.borrowBook(bookId, authentication(borrower));
+        assertThat(bookService.returnBorrowedBook(bookId, authentication(borrower))).isEqualTo(historyId);
+        assertThat(bookService.approveReturnBorrowedBook(bookId, authentication(owner))).isEqualTo(historyId);
+
+        assertThat(statistics.getEntityStatistics(Book.class.getName()).getLoadCount()).isZero();
+        assertThat(bookRepository.findById(bookId).orElseThrow().getLoanState()).isEqualTo(LoanState.AVAILABLE);
+        assertThat(bookTransactionHistoryRepository.findById(historyId).orElseThrow().isReturnApproved()).isTrue();
+        assertThatThrownBy(() -> bookService.returnBorrowedBook(bookId, authentication(borrower)))
+                .isInstanceOf(OperationNotPermittedException.class);
+    }
+
+    @Test
+    void accessIsCachedUntilTheOwnerChangesIt() {
+        User owner = userRepository.save(user("cacheOwner"));
+        User borrower = userRepository.save(user("cacheBorrower"));
+        Integer bookId = bookRepository.save(book(owner)).getId();
+        bookAccessGuard.find(bookId);
+        statistics.clear();
+
+        assertThat(bookAccessGuard.find(bookId).isOwnedBy(owner.getId())).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        bookService.updateArchivedStatus(bookId, true, authentication(owner));
+
+        assertThat(bookAccessGuard.find(bookId).archived()).isTrue();
+        assertThatThrownBy(() -> bookService.borrowBook(bookId, authentication(borrower)))
+                .isInstanceOf(OperationNotPermittedException.class);
+        assertThatThrownBy(() -> bookService.updateShareableStatus(bookId, false, authentication(borrower)))
+                .isInstanceOf(OperationNotPermittedException.class);
+    }
+
+    @Test
+    void aBorrowOnAStaleAccessEntryIsRejectedByTheUpdate() {
+        User owner = userRepository.save(user("staleOwner"));
+        User borrower = userRepository.save(user("staleBorrower"));
+        Integer bookId = bookRepository.save(book(owner)).getId();
+        bookAccessGuard.find(bookId);
+        // Archived on another node, the access entry cached here still says open
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                bookRepository.updateArchivedStatus(List.of(bookId), owner.getId(), true, LocalDateTime.now()));
+
+        assertThatThrownBy(() -> bookService.borrowBook(bookId, authentication(borrower)))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(bookRepository.findById(bookId).orElseThrow().getLoanState()).isEqualTo(LoanState.AVAILABLE);
+        assertThat(bookTransactionHistoryRepository.count()).isZero();
+    }
+
+    @Test
+    void statusChangesReachTheIndexesOnlyOnCommit() {
+        User owner = userRepository.save(user("indexOwner"));
+        Integer bookId = bookRepository.save(book(owner)).getId();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.updateArchivedStatus(bookId, true, authentication(owner));
+            status.setRollbackOnly();
+        });
+        verify(bookSearchIndex, never()).updateStatus(any(), anyBoolean(), anyBoolean());
+
+        bookService.updateShareableStatus(bookId, false, authentication(owner));
+        verify(bookSearchIndex).updateStatus(bookId, false, false);
+        verify(bookLeaderboard).updateStatus(bookId, false, false);
+    }
+
+    private static Authentication authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, List.of());
+    }
+}
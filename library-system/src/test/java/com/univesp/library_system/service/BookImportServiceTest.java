@@ -0,0 +1,145 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.controller.response.BookImportError;
+import com.univesp.library_system.controller.response.BookImportResponse;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.UserRepository;
+import com.univesp.library_system.service.mapper.BookMapper;
+import com.univesp.library_system.service.search.BookSearchIndex;
+import com.univesp.library_system.service.search.BookSuggestionIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Not transactional, every chunk commits in its own transaction
+@H2DataJpaTest
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Import({BookImportService.class, BookMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookImportServiceTest {
+
+    private static final MediaType TEXT_CSV = MediaType.valueOf(BookImportService.TEXT_CSV);
+    private static final MediaType NDJSON = MediaType.valueOf(BookImportService.APPLICATION_NDJSON);
+
+    @Autowired
+    private BookImportService bookImportService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @MockBean
+    private BookSearchIndex bookSearchIndex;
+    @MockBean
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    @Test
+    void csvRowsAreImportedWithQuotedFields() {
+        User owner = userRepository.save(user("csvOwner"));
+        String csv = "﻿title,authorName,isbn,synopsis,shareable\r\n"
+                + "\"Dom Casmurro, 2a ed.\",Machado de Assis,978-85-359-0277-8,\"Bentinho e \"\"Capitu\"\"\nem dois tempos\",true\r\n"
+                + "Iracema,José de Alencar,978-85-7232-001-2,Lenda do Ceará,false\r\n";
+
+        BookImportResponse response = importBooks(csv, TEXT_CSV, owner);
+
+        assertThat(response.importedRows()).isEqualTo(2);
+        assertThat(response.completed()).isTrue();
+        Book domCasmurro = bookRepository.findAll().stream()
+                .filter(book -> book.getIsbn().equals("978-85-359-0277-8"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(domCasmurro.getTitle()).isEqualTo("Dom Casmurro, 2a ed.");
+        assertThat(domCasmurro.getSynopsis()).isEqualTo("Bentinho e \"Capitu\"\nem dois tempos");
+        assertThat(domCasmurro.isShareable()).isTrue();
+        verify(bookSearchIndex, times(2)).index(any());
+    }
+
+    @Test
+    void ndjsonRowsAreImportedAndBadLinesReported() {
+        User owner = userRepository.save(user("ndjsonOwner"));
+        String ndjson = """
+                {"id":1,"title":"O Guarani","authorName":"José de Alencar","isbn":"1","synopsis":"Peri","shareable":true}
+
+                {not json
+                {"title":"","authorName":"Anônimo","isbn":"2","synopsis":"s"}
+                """;
+
+        BookImportResponse response = importBooks(ndjson, NDJSON, owner);
+
+        assertThat(response.totalRows()).isEqualTo(3);
+        assertThat(response.importedRows()).isEqualTo(1);
+        assertThat(response.rejectedRows()).isEqualTo(2);
+        assertThat(response.errors()).extracting(BookImportError::line).containsExactly(3L, 4L);
+        assertThat(response.errors().get(1).errors()).containsExactly("100");
+        // The id in the payload never updates an existing book
+        assertThat(bookRepository.findAll()).filteredOn(book -> book.getTitle().equals("O Guarani"))
+                .singleElement()
+                .satisfies(book -> assertThat(book.getOwner().getId()).isEqualTo(owner.getId()));
+    }
+
+    @Test
+    void invalidRowsOnlyRejectThemselvesAcrossChunks() {
+        User owner = userRepository.save(user("chunkOwner"));
+        long before = bookRepository.count();
+        StringBuilder csv = new StringBuilder("title,authorName,isbn,synopsis,shareable\n");
+        for (int i = 0; i < 1200; i++) {
+            // Lines 2, 102, 202, ... have no title
+            csv.append(i % 100 == 0 ? "" : "Livro " + i).append(",Autor,").append(i).append(",Sinopse,true\n");
+            if (i == 600) {
+                csv.append("\n");
+            }
+        }
+
+        BookImportResponse response = importBooks(csv.toString(), TEXT_CSV, owner);
+
+        assertThat(response.totalRows()).isEqualTo(1200);
+        assertThat(response.rejectedRows()).isEqualTo(12);
+        assertThat(response.importedRows()).isEqualTo(1188);
+        assertThat(bookRepository.count() - before).isEqualTo(1188);
+        // The blank line after row 600 shifts the lines that follow it
+        assertThat(response.errors()).extracting(BookImportError::line)
+                .startsWith(2L, 102L, 202L, 302L, 402L, 502L, 602L, 703L);
+    }
+
+    @Test
+    void aBrokenFileKeepsTheRowsBeforeIt() {
+        User owner = userRepository.save(user("brokenOwner"));
+        String csv = "title,authorName,isbn,synopsis,shareable\n"
+                + "Senhora,José de Alencar,3,Aurélia,true\n"
+                + "\"Lucíola,José de Alencar,4,never closed,true\n";
+
+        BookImportResponse response = importBooks(csv, TEXT_CSV, owner);
+
+        assertThat(response.completed()).isFalse();
+        assertThat(response.importedRows()).isEqualTo(1);
+        assertThat(response.errors()).singleElement()
+                .satisfies(error -> assertThat(error.line()).isEqualTo(3));
+    }
+
+    private BookImportResponse importBooks(String body, MediaType contentType, User owner) {
+        Authentication authentication = new UsernamePasswordAuthenticationToken(owner, null, List.of());
+        return bookImportService.importBooks(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), contentType, authentication);
+    }
+}
@@ -0,0 +1,127 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.LoanState;
+import com.univesp.library_system.handler.OperationNotPermittedException;
+import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// H2 dialect because H2 has no FOR NO KEY UPDATE, the row lock PostgreSQL takes for reservations
+@H2DataJpaTest
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import(BookReservationService.class)
+@RecordApplicationEvents
+class BookReservationServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private BookReservationService bookReservationService;
+    @Autowired
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    private User owner;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(user("owner"));
+        User borrower = entityManager.persist(user("borrower"));
+        book = book(owner);
+        book.setLoanState(LoanState.ON_LOAN);
+        entityManager.persist(book);
+        entityManager.persist(BookTransactionHistory.builder()
+                .user(borrower)
+                .book(book)
+                .returned(false)
+                .returnApproved(false)
+                .build());
+    }
+
+    @Test
+    void readersAreQueuedAndHandedTheBookInArrivalOrder() {
+        List<User> readers = List.of(
+                entityManager.persist(user("first")),
+                entityManager.persist(user("second")),
+                entityManager.persist(user("third"))
+        );
+
+        assertThat(readers)
+                .extracting(reader -> bookReservationService.reserveBook(book.getId(), authentication(reader)).position())
+                .containsExactly(1L, 2L, 3L);
+
+        book.setLoanState(LoanState.AVAILABLE);
+        entityManager.flush();
+
+        assertThat(bookReservationService.handOff(List.of(book.getId()), owner.getId())).containsExactly(book.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Book.class, book.getId()).getLoanState()).isEqualTo(LoanState.ON_LOAN);
+        assertThat(bookTransactionHistoryRepository.findByBookIdAndUserId(book.getId(), readers.get(0).getId()))
+                .isPresent();
+        assertThat(bookReservationService.findReservation(book.getId(), authentication(readers.get(1))).position())
+                .isEqualTo(1L);
+        assertThat(bookReservationService.findReservation(book.getId(), authentication(readers.get(2))).position())
+                .isEqualTo(2L);
+        assertThat(applicationEvents.stream(BookReservationEvent.class))
+                .extracting(BookReservationEvent::email)
+                .containsExactly("first@library.test");
+    }
+
+    @Test
+    void handOffWithAnEmptyQueueLeavesTheBookAvailable() {
+        book.setLoanState(LoanState.AVAILABLE);
+        entityManager.flush();
+
+        assertThat(bookReservationService.handOff(List.of(book.getId()), owner.getId())).isEmpty();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Book.class, book.getId()).getLoanState()).isEqualTo(LoanState.AVAILABLE);
+        assertThat(applicationEvents.stream(BookReservationEvent.class)).isEmpty();
+    }
+
+    @Test
+    void availableBooksAndDuplicatedReservationsAreRejected() {
+        User reader = entityManager.persist(user("reader"));
+        bookReservationService.reserveBook(book.getId(), authentication(reader));
+
+        assertThatThrownBy(() -> bookReservationService.reserveBook(book.getId(), authentication(reader)))
+                .isInstanceOf(OperationNotPermittedException.class);
+        assertThatThrownBy(() -> bookReservationService.reserveBook(book.getId(), authentication(owner)))
+                .isInstanceOf(OperationNotPermittedException.class);
+
+        book.setLoanState(LoanState.AVAILABLE);
+        entityManager.flush();
+        User latecomer = entityManager.persist(user("latecomer"));
+
+        assertThatThrownBy(() -> bookReservationService.reserveBook(book.getId(), authentication(latecomer)))
+                .isInstanceOf(OperationNotPermittedException.class)
+                .hasMessageContaining("borrow it instead");
+    }
+
+    private static Authentication authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, List.of());
+    }
+}
@@ -0,0 +1,136 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.config.CacheConfig;
+import com.univesp.library_system.controller.request.BookIdsRequest;
+import com.univesp.library_system.controller.response.BookReturnApprovalResponse;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.BookReservation;
+import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.LoanState;
+import com.univesp.library_system.repository.ApproximateCountRepository;
+import com.univesp.library_system.service.leaderboard.BookLeaderboard;
+import com.univesp.library_system.service.mapper.BookMapper;
+import com.univesp.library_system.service.search.BookSearchIndex;
+import com.univesp.library_system.service.search.BookSuggestionIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({BookService.class, BookMapper.class, BookReservationService.class, BookAccessGuard.class, CacheConfig.class})
+class BookReturnApprovalQueryCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BookService bookService;
+    @MockBean
+    private BookSearchIndex bookSearchIndex;
+    @MockBean
+    private BookSuggestionIndex bookSuggestionIndex;
+    @MockBean
+    private BookLeaderboard bookLeaderboard;
+    @MockBean
+    private FileStorageService fileStorageService;
+    @MockBean
+    private ApproximateCountRepository approximateCountRepository;
+
+    @Test
+    void approvingMoreReturnsDoesNotIssueMoreStatements() {
+        assertThat(statementsToApprove(5)).isEqualTo(statementsToApprove(25));
+    }
+
+    @Test
+    void eachRequestedBookGetsAnOutcome() {
+        User owner = entityManager.persist(user("owner"));
+        User borrower = entityManager.persist(user("borrower"));
+        User reader = entityManager.persist(user("reader"));
+        Book pending = entityManager.persist(bookIn(LoanState.RETURN_PENDING, owner));
+        Book reserved = entityManager.persist(bookIn(LoanState.RETURN_PENDING, owner));
+        Book onLoan = entityManager.persist(bookIn(LoanState.ON_LOAN, owner));
+        entityManager.persist(history(pending, borrower, true));
+        entityManager.persist(history(reserved, borrower, true));
+        entityManager.persist(history(onLoan, borrower, false));
+        entityManager.persist(BookReservation.builder().book(reserved).user(reader).ticket(1).build());
+        entityManager.flush();
+
+        BookReturnApprovalResponse response = bookService.bulkApproveReturnBorrowedBooks(
+                new BookIdsRequest(List.of(pending.getId(), reserved.getId(), onLoan.getId(), Integer.MAX_VALUE)),
+                authentication(owner));
+        entityManager.clear();
+
+        assertThat(response.approved()).containsExactly(pending.getId());
+        assertThat(response.handedOff()).containsExactly(reserved.getId());
+        assertThat(response.rejected()).containsExactly(onLoan.getId(), Integer.MAX_VALUE);
+        assertThat(entityManager.find(Book.class, pending.getId()).getLoanState()).isEqualTo(LoanState.AVAILABLE);
+        assertThat(entityManager.find(Book.class, reserved.getId()).getLoanState()).isEqualTo(LoanState.ON_LOAN);
+        assertThat(entityManager.find(Book.class, onLoan.getId()).getLoanState()).isEqualTo(LoanState.ON_LOAN);
+    }
+
+    private long statementsToApprove(int books) {
+        User owner = entityManager.persist(user("owner" + books));
+        User borrower = entityManager.persist(user("borrower" + books));
+        List<Integer> bookIds = new ArrayList<>();
+        for (int i = 0; i < books; i++) {
+            Book book = entityManager.persist(bookIn(LoanState.RETURN_PENDING, owner));
+            entityManager.persist(history(book, borrower, true));
+            if (i % 2 == 0) {
+                User reader = entityManager.persist(user("reader" + books + "-" + i));
+                entityManager.persist(BookReservation.builder().book(book).user(reader).ticket(1).build());
+            }
+            bookIds.add(book.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BookReturnApprovalResponse response = bookService.bulkApproveReturnBorrowedBooks(
+                new BookIdsRequest(bookIds), authentication(owner));
+        entityManager.flush();
+
+        assertThat(response.approved()).hasSize(books / 2);
+        assertThat(response.handedOff()).hasSize(books - books / 2);
+        assertThat(response.rejected()).isEmpty();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static BookTransactionHistory history(Book book, User borrower, boolean returned) {
+        return BookTransactionHistory.builder()
+                .book(book)
+                .user(borrower)
+                .returned(returned)
+                .returnApproved(false)
+                .build();
+    }
+
+    private static Book bookIn(LoanState loanState, User owner) {
+        Book book = book(owner);
+        book.setLoanState(loanState);
+        return book;
+    }
+
+    private static Authentication authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, List.of());
+    }
+}
@@ -0,0 +1,131 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.LoanState;
+import com.univesp.library_system.handler.BookAlreadyBorrowedException;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against PostgreSQL because the active loan rule relies on a partial unique index
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest
+class BorrowContentionTest {
+
+    private static final int BOOKS = 10;
+    private static final int BORROWERS = 100;
+    private static final int THREADS = 32;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentBorrowsNeverCreateTwoActiveLoansForTheSameBook() throws Exception {
+        User owner = userRepository.save(user("owner"));
+        List<Integer> bookIds = new ArrayList<>();
+        runAs(owner, () -> {
+            for (int i = 0; i < BOOKS; i++) {
+                bookIds.add(bookRepository.save(book(owner, i)).getId());
+            }
+        });
+        List<User> borrowers = new ArrayList<>();
+        for (int i = 0; i < BORROWERS; i++) {
+            borrowers.add(userRepository.save(user("borrower" + i)));
+        }
+
+        AtomicInteger loans = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> attempts = new ArrayList<>();
+        for (User borrower : borrowers) {
+            for (Integer bookId : bookIds) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    runAs(borrower, () -> {
+                        try {
+                            bookService.borrowBook(bookId, authentication(borrower));
+                            loans.incrementAndGet();
+                        } catch (BookAlreadyBorrowedException | OptimisticLockingFailureException exception) {
+                            conflicts.incrementAndGet();
+                        }
+                    });
+                    return null;
+                }));
+            }
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> attempt : attempts) {
+            attempt.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        executor.shutdown();
+        log.info("{} borrow attempts in {} ms ({} attempts/s), {} loans and {} conflicts",
+                attempts.size(), elapsedMillis, attempts.size() * 1000L / elapsedMillis, loans.get(), conflicts.get());
+
+        assertThat(attempts).hasSize(BOOKS * BORROWERS);
+        assertThat(loans.get()).isEqualTo(BOOKS);
+        assertThat(conflicts.get()).isEqualTo(BOOKS * BORROWERS - BOOKS);
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT book_id
+                FROM book_transaction_history
+                WHERE return_approved = false
+                GROUP BY book_id
+                HAVING COUNT(*) > 1
+                """)).isEmpty();
+        assertThat(bookRepository.findAllById(bookIds))
+                .extracting(Book::getLoanState)
+                .containsOnly(LoanState.ON_LOAN);
+    }
+
+    private static void runAs(User user, Runnable action) {
+        SecurityContextHolder.getContext().setAuthentication(authentication(user));
+        try {
+            action.run();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static Authentication authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, List.of());
+    }
+}
@@ -0,0 +1,81 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.controller.request.FeedbackRequest;
+import com.univesp.library_system.controller.response.CursorPageResponse;
+import com.univesp.library_system.controller.response.FeedbackResponse;
+import com.univesp.library_system.controller.response.FeedbackSummaryResponse;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.repository.ApproximateCountRepository;
+import com.univesp.library_system.service.mapper.FeedbackMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@H2DataJpaTest
+@Import({FeedbackService.class, FeedbackMapper.class, BookAccessGuard.class})
+class FeedbackServiceTest {
+
+    private static final List<Double> NOTES = List.of(0.5, 1.0, 3.5, 4.0, 4.5, 5.0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private FeedbackService feedbackService;
+    @MockBean
+    private ApproximateCountRepository approximateCountRepository;
+
+    private Book book;
+    private Authentication reader;
+
+    @BeforeEach
+    void setUp() {
+        User owner = entityManager.persist(user("owner"));
+        reader = new UsernamePasswordAuthenticationToken(entityManager.persist(user("reader")), null, List.of());
+        book = entityManager.persist(book(owner));
+        NOTES.forEach(note -> feedbackService.saveFeedback(new FeedbackRequest(note, "Note " + note, book.getId()), reader));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void summaryCountsEveryNoteInItsOneStarBand() {
+        FeedbackSummaryResponse summary = feedbackService.findFeedbackSummary(book.getId());
+
+        assertThat(summary.feedbackCount()).isEqualTo(NOTES.size());
+        assertThat(summary.rate()).isEqualTo(3.1);
+        assertThat(summary.ratingBands()).containsExactly(
+                entry("0-1", 1), entry("1-2", 1), entry("2-3", 0), entry("3-4", 1), entry("4-5", 3));
+    }
+
+    @Test
+    void keysetPagesWalkEveryFeedbackOnceNewestFirst() {
+        List<String> comments = new ArrayList<>();
+        String after = "";
+        CursorPageResponse<FeedbackResponse> page;
+        do {
+            page = feedbackService.findAllFeedbacksByBookAfter(book.getId(), after, 4, reader);
+            page.getContent().forEach(feedback -> comments.add(feedback.comment()));
+            after = page.getNextCursor();
+        } while (!page.isLast());
+
+        List<String> newestFirst = new ArrayList<>(NOTES.stream().map(note -> "Note " + note).toList());
+        Collections.reverse(newestFirst);
+        assertThat(comments).containsExactlyElementsOf(newestFirst);
+    }
+}
@@ -0,0 +1,100 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.config.CacheConfig;
+import com.univesp.library_system.controller.request.FeedbackRequest;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.handler.FeedbackQueueFullException;
+import com.univesp.library_system.repository.ApproximateCountRepository;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.FeedbackRepository;
+import com.univesp.library_system.repository.UserRepository;
+import com.univesp.library_system.repository.projection.RatingSummary;
+import com.univesp.library_system.service.mapper.FeedbackMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not transactional, the worker writes in its own transactions and must see the committed books
+@H2DataJpaTest
+@TestPropertySource(properties = {
+        "application.feedback.write-behind.enabled=true",
+        "application.feedback.write-behind.batch-size=5",
+        "application.feedback.write-behind.flush-interval-ms=60000",
+        "application.feedback.write-behind.retry-backoff-ms=10"
+})
+@Import({FeedbackService.class, FeedbackMapper.class, FeedbackWriteBehindBuffer.class, BookAccessGuard.class,
+        CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FeedbackWriteBehindBufferTest {
+
+    private static final List<Double> NOTES = List.of(0.5, 1.0, 3.5, 4.0, 4.5, 5.0);
+
+    @Autowired
+    private FeedbackService feedbackService;
+    @Autowired
+    private FeedbackWriteBehindBuffer feedbackWriteBehindBuffer;
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @MockBean
+    private ApproximateCountRepository approximateCountRepository;
+
+    @Test
+    void fullBatchesAreWrittenRightAwayAndTheRestOnShutdownWithoutTheFailingRow() throws Exception {
+        User owner = userRepository.save(user("owner"));
+        Authentication reader = new UsernamePasswordAuthenticationToken(userRepository.save(user("reader")), null, List.of());
+        List<Book> books = List.of(bookRepository.save(book(owner)), bookRepository.save(book(owner)));
+
+        for (Book book : books) {
+            for (Double note : NOTES) {
+                assertThat(feedbackService.saveFeedback(new FeedbackRequest(note, "Note " + note, book.getId()), reader))
+                        .isNull();
+            }
+        }
+        // Two batches of five are full, the last two feedbacks wait for the flush interval
+        awaitFeedbackCount(10);
+        assertThat(feedbackRepository.count()).isEqualTo(10);
+        // A book deleted after its feedback was queued fails the last batch, only that row is dropped
+        feedbackWriteBehindBuffer.enqueue(new FeedbackWriteBehindBuffer.PendingFeedback(
+                Integer.MAX_VALUE, 4.0, "Gone", owner.getId()));
+
+        feedbackWriteBehindBuffer.stop();
+
+        assertThat(feedbackRepository.count()).isEqualTo(2L * NOTES.size());
+        for (Book book : books) {
+            RatingSummary summary = bookRepository.findRatingSummary(book.getId()).orElseThrow();
+            assertThat(summary.ratingCount()).isEqualTo(NOTES.size());
+            assertThat(summary.ratingSum()).isEqualTo(18.5);
+            assertThat(List.of(summary.ratingBand0(), summary.ratingBand1(), summary.ratingBand2(),
+                    summary.ratingBand3(), summary.ratingBand4()))
+                    .containsExactly(1, 1, 0, 1, 3);
+        }
+        assertThatThrownBy(() -> feedbackService.saveFeedback(new FeedbackRequest(3.0, "Late", books.get(0).getId()), reader))
+                .isInstanceOf(FeedbackQueueFullException.class);
+    }
+
+    private void awaitFeedbackCount(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (feedbackRepository.count() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+}
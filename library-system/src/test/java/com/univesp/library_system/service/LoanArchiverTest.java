@@ -0,0 +1,102 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import com.univesp.library_system.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against PostgreSQL because the archive is a natively partitioned table
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "application.loan.archive-batch-size=2")
+class LoanArchiverTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private LoanArchiver loanArchiver;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void approvedLoansPastTheWindowMoveToMonthlyPartitions() {
+        User owner = userRepository.save(user("owner"));
+        User borrower = userRepository.save(user("borrower"));
+        SecurityContextHolder.getContext().setAuthentication(authentication(owner));
+        try {
+            Book book = bookRepository.save(book(owner));
+            List<Integer> oldLoans = List.of(
+                    loan(book, borrower, true, LocalDateTime.of(2024, 1, 10, 12, 0)),
+                    loan(book, borrower, true, LocalDateTime.of(2024, 1, 20, 12, 0)),
+                    loan(book, borrower, true, LocalDateTime.of(2024, 3, 5, 12, 0)));
+            loan(book, borrower, true, LocalDateTime.now().minusDays(1));
+            loan(book, borrower, false, LocalDateTime.of(2024, 2, 1, 12, 0));
+
+            loanArchiver.archive();
+
+            assertThat(bookTransactionHistoryRepository.findAllById(oldLoans)).isEmpty();
+            assertThat(bookTransactionHistoryRepository.count()).isEqualTo(2);
+            assertThat(jdbcTemplate.queryForList("""
+                    SELECT partition.relname
+                    FROM pg_inherits
+                    JOIN pg_class partition ON partition.oid = pg_inherits.inhrelid
+                    WHERE pg_inherits.inhparent = 'book_transaction_history_archive'::regclass
+                    ORDER BY partition.relname
+                    """, String.class))
+                    .containsExactly("book_transaction_history_archive_2024_01", "book_transaction_history_archive_2024_03");
+            assertThat(bookService.findAllBorrowedBooks(0, 10, authentication(borrower)).getTotalElements())
+                    .isEqualTo(2);
+            assertThat(bookService.findAllBorrowedBooksWithArchive(0, 10, authentication(borrower)).getTotalElements())
+                    .isEqualTo(5);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Created and completed at the given time, as if the loan had been approved back then
+    private Integer loan(Book book, User borrower, boolean returnApproved, LocalDateTime completedAt) {
+        Integer historyId = bookTransactionHistoryRepository.save(BookTransactionHistory.builder()
+                .user(borrower)
+                .book(book)
+                .returned(returnApproved)
+                .returnApproved(returnApproved)
+                .build()).getId();
+        jdbcTemplate.update("UPDATE book_transaction_history SET created_date = ?, last_modified_date = ? WHERE id = ?",
+                Timestamp.valueOf(completedAt), Timestamp.valueOf(completedAt), historyId);
+        return historyId;
+    }
+
+    private static Authentication authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, List.of());
+    }
+}
@@ -0,0 +1,57 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.enums.LoanEventType;
+import com.univesp.library_system.service.leaderboard.BookLeaderboard;
+import com.univesp.library_system.service.search.BookSuggestionIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LoanEventListenerTest {
+
+    private BookSuggestionIndex bookSuggestionIndex;
+    private BookLeaderboard bookLeaderboard;
+    private SimpleMeterRegistry meterRegistry;
+    private LoanEventListener loanEventListener;
+
+    @BeforeEach
+    void setUp() {
+        bookSuggestionIndex = mock(BookSuggestionIndex.class);
+        bookLeaderboard = mock(BookLeaderboard.class);
+        meterRegistry = new SimpleMeterRegistry();
+        loanEventListener = new LoanEventListener(bookSuggestionIndex, bookLeaderboard, meterRegistry);
+    }
+
+    @Test
+    void aRedeliveredBorrowIsCountedOnce() {
+        loanEventListener.onLoanEvent(borrowed(1, 10));
+        loanEventListener.onLoanEvent(borrowed(1, 10));
+        loanEventListener.onLoanEvent(borrowed(2, 10));
+
+        verify(bookSuggestionIndex, times(2)).recordBorrow(10);
+        verify(bookLeaderboard, times(2)).recordBorrow(10);
+        assertThat(meterRegistry.counter("library.loan.events.duplicate", "type", "BORROWED").count()).isEqualTo(1);
+    }
+
+    @Test
+    void aFailedEventIsAppliedAgainOnRedelivery() {
+        doThrow(new IllegalStateException("boom")).doNothing().when(bookLeaderboard).recordBorrow(10);
+
+        assertThatThrownBy(() -> loanEventListener.onLoanEvent(borrowed(1, 10)))
+                .isInstanceOf(IllegalStateException.class);
+        loanEventListener.onLoanEvent(borrowed(1, 10));
+
+        verify(bookLeaderboard, times(2)).recordBorrow(10);
+    }
+
+    private static LoanEvent borrowed(int eventId, int bookId) {
+        return new LoanEvent(eventId, LoanEventType.BORROWED, 100 + eventId, bookId, 1);
+    }
+}
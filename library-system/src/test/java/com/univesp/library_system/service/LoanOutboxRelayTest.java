@@ -0,0 +1,106 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.domain.LoanOutboxEvent;
+import com.univesp.library_system.enums.LoanEventType;
+import com.univesp.library_system.repository.LoanOutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// H2 dialect because H2 has no FOR NO KEY UPDATE, the row lock PostgreSQL takes for the relay batches
+@H2DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "application.outbox.batch-size=2",
+        "application.outbox.max-attempts=2",
+        "application.outbox.retention=0s"
+})
+@Import({LoanOutboxRelay.class, LoanOutboxRelayTest.ListenerConfig.class})
+class LoanOutboxRelayTest {
+
+    @Autowired
+    private LoanOutboxRelay loanOutboxRelay;
+    @Autowired
+    private LoanOutboxEventRepository loanOutboxEventRepository;
+    @Autowired
+    private RecordingListener listener;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void eventsAreDeliveredInOrderAndFailedOnesAreRetriedUpToTheLimit() {
+        List<Integer> eventIds = loanOutboxEventRepository.saveAll(List.of(
+                event(LoanEventType.BORROWED, 1),
+                event(LoanEventType.RETURNED, 1),
+                event(LoanEventType.RETURN_APPROVED, 1),
+                event(LoanEventType.BORROWED, 2)
+        )).stream().map(LoanOutboxEvent::getId).toList();
+
+        loanOutboxRelay.relay();
+        loanOutboxRelay.relay();
+        loanOutboxRelay.relay();
+
+        assertThat(listener.deliveries).containsExactly(
+                eventIds.get(0), eventIds.get(1), eventIds.get(2), eventIds.get(3), eventIds.get(1));
+        assertThat(loanOutboxEventRepository.findAllById(eventIds))
+                .filteredOn(event -> event.getDispatchedDate() == null)
+                .extracting(LoanOutboxEvent::getId, LoanOutboxEvent::getAttempts)
+                .containsExactly(tuple(eventIds.get(1), 2));
+        assertThat(meterRegistry.counter("library.loan.outbox.exhausted", "type", "RETURNED").count()).isEqualTo(1);
+
+        loanOutboxRelay.purge();
+
+        // Only the exhausted event is left, for whoever looks into the failure
+        assertThat(loanOutboxEventRepository.findAll()).extracting(LoanOutboxEvent::getId)
+                .containsExactly(eventIds.get(1));
+    }
+
+    private static LoanOutboxEvent event(LoanEventType type, int bookId) {
+        return LoanOutboxEvent.builder()
+                .type(type)
+                .historyId(bookId)
+                .bookId(bookId)
+                .userId(1)
+                .build();
+    }
+
+    static class RecordingListener {
+
+        private final List<Integer> deliveries = new ArrayList<>();
+
+        @EventListener
+        public void onLoanEvent(LoanEvent event) {
+            deliveries.add(event.eventId());
+            if (event.type() == LoanEventType.RETURNED) {
+                throw new IllegalStateException("Listener failure");
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class ListenerConfig {
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.univesp.library_system.service;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.BookTransactionHistory;
+import com.univesp.library_system.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static com.univesp.library_system.enums.EmailTemplateName.LOAN_OVERDUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@H2DataJpaTest
+@TestPropertySource(properties = "application.loan.overdue-batch-size=2")
+@Import(OverdueLoanSweeper.class)
+class OverdueLoanSweeperTest {
+
+    private static final int OVERDUE_LOANS = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private OverdueLoanSweeper overdueLoanSweeper;
+    @MockBean
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        User owner = entityManager.persist(user("owner"));
+        User borrower = entityManager.persist(user("borrower"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < OVERDUE_LOANS; i++) {
+            entityManager.persist(loan(owner, borrower, now.minusDays(i + 1), false));
+        }
+        entityManager.persist(loan(owner, borrower, now.minusDays(1), true));
+        entityManager.persist(loan(owner, borrower, now.plusDays(1), false));
+        entityManager.flush();
+    }
+
+    @Test
+    void overdueOpenLoansAreFlaggedAcrossBatchesAndRemindedOnce() throws Exception {
+        overdueLoanSweeper.sweep();
+        overdueLoanSweeper.sweep();
+
+        assertThat(entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(history) FROM BookTransactionHistory history WHERE history.overdue = true", Long.class)
+                .getSingleResult())
+                .isEqualTo(OVERDUE_LOANS);
+        verify(emailService, times(OVERDUE_LOANS))
+                .sendEmail(eq("borrower@library.test"), anyString(), eq(LOAN_OVERDUE), anyMap(), anyString());
+        verifyNoMoreInteractions(emailService);
+    }
+
+    private BookTransactionHistory loan(User owner, User borrower, LocalDateTime dueDate, boolean returned) {
+        Book book = entityManager.persist(book(owner));
+        return BookTransactionHistory.builder()
+                .user(borrower)
+                .book(book)
+                .returned(returned)
+                .returnApproved(false)
+                .dueDate(dueDate)
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.univesp.library_system.service.leaderboard;
+
+import com.univesp.library_system.H2DataJpaTest;
+import com.univesp.library_system.controller.response.LeaderboardEntryResponse;
+import com.univesp.library_system.domain.Book;
+import com.univesp.library_system.domain.User;
+import com.univesp.library_system.enums.LeaderboardKind;
+import com.univesp.library_system.repository.ApproximateCountRepository;
+import com.univesp.library_system.repository.BookLeaderboardCheckpointRepository;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.UserRepository;
+import com.univesp.library_system.service.BookRatedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.univesp.library_system.TestFixtures.book;
+import static com.univesp.library_system.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Not transactional, the checkpoint is written and read back in its own transactions
+@H2DataJpaTest
+@TestPropertySource(properties = {
+        "application.leaderboard.capacity=3",
+        "application.leaderboard.trending-half-life=3d",
+        "application.leaderboard.rating-prior-count=5",
+        "application.leaderboard.rating-prior-mean=3.0"
+})
+@Import(BookLeaderboard.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookLeaderboardTest {
+
+    @Autowired
+    private BookLeaderboard bookLeaderboard;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookLeaderboardCheckpointRepository bookLeaderboardCheckpointRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @MockBean
+    private ApproximateCountRepository approximateCountRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookLeaderboardCheckpointRepository.deleteAll();
+        bookRepository.deleteAll();
+        bookLeaderboard.restore();
+    }
+
+    @Test
+    void oldBorrowsFadeAndNewBooksTakeTheLowestPlace() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 3; i++) {
+            bookLeaderboard.recordBorrow(1, now.minus(Duration.ofDays(10)));
+        }
+        bookLeaderboard.recordBorrow(2, now);
+        bookLeaderboard.recordBorrow(3, now);
+        bookLeaderboard.recordBorrow(3, now);
+
+        assertThat(bookLeaderboard.top(LeaderboardKind.TRENDING, 10))
+                .extracting(LeaderboardEntryResponse::bookId)
+                .containsExactly(3, 2, 1);
+        // Three borrows ten days ago weigh 3 * 2^(-10/3)
+        assertThat(bookLeaderboard.top(LeaderboardKind.TRENDING, 10).get(2).score()).isEqualTo(0.30);
+
+        bookLeaderboard.recordBorrow(4, now);
+
+        assertThat(bookLeaderboard.top(LeaderboardKind.TRENDING, 10))
+                .extracting(LeaderboardEntryResponse::bookId, LeaderboardEntryResponse::score)
+                .containsExactly(
+                        tuple(3, 2.0),
+                        tuple(4, 1.3),
+                        tuple(2, 1.0));
+    }
+
+    @Test
+    void anUnsharedBookComesBackWithItsScore() {
+        bookLeaderboard.recordBorrow(1);
+        bookLeaderboard.recordBorrow(1);
+        bookLeaderboard.recordBorrow(2);
+
+        bookLeaderboard.updateStatus(1, false, false);
+
+        assertThat(bookLeaderboard.top(LeaderboardKind.TRENDING, 10))
+                .extracting(LeaderboardEntryResponse::bookId)
+                .containsExactly(2);
+
+        bookLeaderboard.updateStatus(1, false, true);
+
+        assertThat(bookLeaderboard.top(LeaderboardKind.TRENDING, 10))
+                .extracting(LeaderboardEntryResponse::bookId, LeaderboardEntryResponse::score)
+                .containsExactly(
+                        tuple(1, 2.0),
+                        tuple(2, 1.0));
+    }
+
+    @Test
+    void aFewHighRatingsArePulledTowardsThePrior() throws InterruptedException {
+        User owner = userRepository.save(user("ratingOwner"));
+        Integer once = bookRepository.save(ratedBook(owner, 5.0, 1)).getId();
+        Integer often = bookRepository.save(ratedBook(owner, 90.0, 20)).getId();
+
+        bookLeaderboard.onBookRated(new BookRatedEvent(once));
+        bookLeaderboard.onBookRated(new BookRatedEvent(often));
+        awaitTopRatedSize(2);
+
+        assertThat(bookLeaderboard.top(LeaderboardKind.TOP_RATED, 10))
+                .extracting(LeaderboardEntryResponse::bookId, LeaderboardEntryResponse::score)
+                .containsExactly(
+                        tuple(often, 4.2),
+                        tuple(once, 3.33));
+    }
+
+    @Test
+    void aRestartReadsTheCheckpointBackWithoutTheArchivedBooks() {
+        User owner = userRepository.save(user("checkpointOwner"));
+        Book kept = bookRepository.save(ratedBook(owner, 9.0, 2));
+        Book archived = bookRepository.save(ratedBook(owner, 10.0, 2));
+        // No checkpoint yet, the top rated shelf is seeded from the books
+        bookLeaderboard.restore();
+        bookLeaderboard.recordBorrow(kept.getId());
+        bookLeaderboard.recordBorrow(archived.getId());
+        bookLeaderboard.recordBorrow(archived.getId());
+        assertThat(bookLeaderboard.top(LeaderboardKind.TOP_RATED, 10))
+                .extracting(LeaderboardEntryResponse::bookId)
+                .containsExactly(archived.getId(), kept.getId());
+
+        bookLeaderboard.checkpoint();
+        archived.setArchived(true);
+        bookRepository.save(archived);
+        bookLeaderboard.restore();
+
+        assertThat(bookLeaderboardCheckpointRepository.count()).isEqualTo(4);
+        assertThat(bookLeaderboard.top(LeaderboardKind.TRENDING, 10))
+                .extracting(LeaderboardEntryResponse::bookId, LeaderboardEntryResponse::score)
+                .containsExactly(tuple(kept.getId(), 1.0));
+        assertThat(bookLeaderboard.top(LeaderboardKind.TOP_RATED, 10))
+                .extracting(LeaderboardEntryResponse::bookId)
+                .containsExactly(kept.getId());
+    }
+
+    private void awaitTopRatedSize(int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (bookLeaderboard.top(LeaderboardKind.TOP_RATED, 10).size() < size
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static Book ratedBook(User owner, double ratingSum, int ratingCount) {
+        Book book = book(owner);
+        book.setRatingSum(ratingSum);
+        book.setRatingCount(ratingCount);
+        return book;
+    }
+}
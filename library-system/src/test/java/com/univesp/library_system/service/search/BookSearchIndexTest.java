@@ -0,0 +1,92 @@
+package com.univesp.library_system.service.search;
+
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.projection.BookSearchDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class BookSearchIndexTest {
+
+    private static final int OWNER = 1;
+    private static final int READER = 2;
+
+    private BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookSearchIndex = new BookSearchIndex(mock(BookRepository.class));
+    }
+
+    @Test
+    void accentsAreIgnoredOnBothSides() {
+        bookSearchIndex.index(document(1, "Memórias Póstumas de Brás Cubas", "Machado de Assis", null, null));
+
+        assertThat(bookSearchIndex.search("memorias postumas", READER, 0, 10).bookIds()).containsExactly(1);
+        assertThat(bookSearchIndex.search("BRÁS", READER, 0, 10).bookIds()).containsExactly(1);
+        assertThat(bookSearchIndex.search("Memorías", READER, 0, 10).bookIds()).containsExactly(1);
+    }
+
+    @Test
+    void isbnMatchesWithAndWithoutHyphens() {
+        bookSearchIndex.index(document(1, "Dom Casmurro", null, "978-85-359-0277-8", null));
+
+        assertThat(bookSearchIndex.search("9788535902778", READER, 0, 10).bookIds()).containsExactly(1);
+        assertThat(bookSearchIndex.search("978-85-359-0277-8", READER, 0, 10).bookIds()).containsExactly(1);
+    }
+
+    @Test
+    void titleMatchesRankAboveSynopsisMatches() {
+        bookSearchIndex.index(document(1, "Viagem ao centro", null, null, "Uma longa jornada pelo sertão"));
+        bookSearchIndex.index(document(2, "O Sertão", "Euclides", null, null));
+        bookSearchIndex.index(document(3, "Contos", null, null, null));
+
+        assertThat(bookSearchIndex.search("sertao", READER, 0, 10).bookIds()).containsExactly(2, 1);
+        assertThat(bookSearchIndex.search("euclides sertao", READER, 0, 10).bookIds()).containsExactly(2, 1);
+    }
+
+    @Test
+    void ownArchivedAndUnsharedBooksAreHiddenUntilTheirStatusChanges() {
+        bookSearchIndex.index(document(1, "Iracema", null, null, null));
+        bookSearchIndex.index(new BookSearchDocument(2, OWNER, "Iracema", null, null, null, true, true));
+        bookSearchIndex.index(new BookSearchDocument(3, OWNER, "Iracema", null, null, null, false, false));
+
+        assertThat(bookSearchIndex.search("iracema", OWNER, 0, 10).totalHits()).isZero();
+        assertThat(bookSearchIndex.search("iracema", READER, 0, 10).bookIds()).containsExactly(1);
+
+        bookSearchIndex.updateStatus(2, false, true);
+        bookSearchIndex.updateStatus(1, true, true);
+
+        assertThat(bookSearchIndex.search("iracema", READER, 0, 10).bookIds()).containsExactly(2);
+    }
+
+    @Test
+    void indexingABookAgainReplacesItsTerms() {
+        bookSearchIndex.index(document(1, "O Cortiço", null, null, null));
+        bookSearchIndex.index(document(1, "O Guarani", null, null, null));
+
+        assertThat(bookSearchIndex.search("cortico", READER, 0, 10).totalHits()).isZero();
+        assertThat(bookSearchIndex.search("guarani", READER, 0, 10).bookIds()).containsExactly(1);
+    }
+
+    @Test
+    void pagesStopAtTheMatchedBooks() {
+        for (int id = 1; id <= 3; id++) {
+            bookSearchIndex.index(document(id, "Capitães da Areia " + id, null, null, null));
+        }
+
+        assertThat(bookSearchIndex.search("areia", READER, 0, 2).bookIds()).hasSize(2);
+        assertThat(bookSearchIndex.search("areia", READER, 1, 2).bookIds()).hasSize(1);
+        BookSearchIndex.SearchHits pastTheEnd = bookSearchIndex.search("areia", READER, 5, 2);
+        assertThat(pastTheEnd.bookIds()).isEmpty();
+        assertThat(pastTheEnd.totalHits()).isEqualTo(3);
+        assertThat(bookSearchIndex.search("areia", READER, 0, Integer.MAX_VALUE).bookIds()).hasSize(3);
+        assertThat(bookSearchIndex.search("areia", READER, Integer.MAX_VALUE, Integer.MAX_VALUE).bookIds()).isEmpty();
+    }
+
+    private static BookSearchDocument document(int id, String title, String authorName, String isbn, String synopsis) {
+        return new BookSearchDocument(id, OWNER, title, authorName, isbn, synopsis, false, true);
+    }
+}
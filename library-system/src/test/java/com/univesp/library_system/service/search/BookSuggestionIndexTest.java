@@ -0,0 +1,121 @@
+package com.univesp.library_system.service.search;
+
+import com.univesp.library_system.controller.response.BookSuggestionResponse;
+import com.univesp.library_system.enums.SuggestionType;
+import com.univesp.library_system.repository.BookRepository;
+import com.univesp.library_system.repository.BookTransactionHistoryRepository;
+import com.univesp.library_system.repository.projection.BookBorrowCount;
+import com.univesp.library_system.repository.projection.BookSearchDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSuggestionIndexTest {
+
+    private BookRepository bookRepository;
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        bookTransactionHistoryRepository = mock(BookTransactionHistoryRepository.class);
+        bookSuggestionIndex = new BookSuggestionIndex(bookRepository, bookTransactionHistoryRepository);
+    }
+
+    @Test
+    void prefixesMatchAnyWordIgnoringAccents() {
+        bookSuggestionIndex.add(document(1, "Memórias Póstumas de Brás Cubas", "Machado de Assis"));
+
+        assertThat(texts("MEMO")).containsExactly("Memórias Póstumas de Brás Cubas");
+        assertThat(texts("póst")).containsExactly("Memórias Póstumas de Brás Cubas");
+        assertThat(texts("bras")).containsExactly("Memórias Póstumas de Brás Cubas");
+        assertThat(texts("assis")).containsExactly("Machado de Assis");
+        assertThat(texts("xyz")).isEmpty();
+    }
+
+    @Test
+    void borrowsMoveBooksAndAuthorsUp() {
+        bookSuggestionIndex.add(document(1, "Dom Casmurro", "Machado de Assis"));
+        bookSuggestionIndex.add(document(2, "Dom Quixote", "Miguel de Cervantes"));
+
+        assertThat(texts("dom")).containsExactly("Dom Casmurro", "Dom Quixote");
+
+        bookSuggestionIndex.recordBorrow(2);
+        bookSuggestionIndex.recordBorrow(2);
+
+        assertThat(bookSuggestionIndex.suggest("dom", 10))
+                .extracting(BookSuggestionResponse::text, BookSuggestionResponse::popularity)
+                .containsExactly(tuple("Dom Quixote", 2L), tuple("Dom Casmurro", 0L));
+        assertThat(texts("m")).containsExactly("Miguel de Cervantes", "Machado de Assis");
+    }
+
+    @Test
+    void archivedBooksDisappearAndComeBackWithTheirBorrows() {
+        bookSuggestionIndex.add(document(1, "Dom Casmurro", "Machado de Assis"));
+        bookSuggestionIndex.add(document(2, "Dom Quixote", "Miguel de Cervantes"));
+
+        bookSuggestionIndex.updateStatus(1, true, true);
+        bookSuggestionIndex.recordBorrow(1);
+
+        assertThat(texts("dom")).containsExactly("Dom Quixote");
+        assertThat(texts("machado")).isEmpty();
+
+        bookSuggestionIndex.updateStatus(1, false, true);
+
+        assertThat(bookSuggestionIndex.suggest("dom", 10))
+                .extracting(BookSuggestionResponse::text, BookSuggestionResponse::popularity)
+                .containsExactly(tuple("Dom Casmurro", 1L), tuple("Dom Quixote", 0L));
+        assertThat(bookSuggestionIndex.suggest("machado", 10))
+                .extracting(BookSuggestionResponse::type, BookSuggestionResponse::popularity)
+                .containsExactly(tuple(SuggestionType.AUTHOR, 1L));
+    }
+
+    @Test
+    void prefixesLongerThanTheTrieAreFiltered() {
+        bookSuggestionIndex.add(document(1, "Capitães da Areia", null));
+        bookSuggestionIndex.add(document(2, "Capitão Blood", null));
+        bookSuggestionIndex.add(document(3, "Nana Nana Nana", null));
+
+        assertThat(texts("capita")).containsExactlyInAnyOrder("Capitães da Areia", "Capitão Blood");
+        assertThat(texts("capitaes d")).containsExactly("Capitães da Areia");
+        assertThat(texts("capitao blood")).containsExactly("Capitão Blood");
+        assertThat(texts("capitao x")).isEmpty();
+        // Two word starts of the same title end on the same node, it is still suggested once
+        assertThat(texts("nana nana")).containsExactly("Nana Nana Nana");
+    }
+
+    @Test
+    void rebuildLoadsBooksWithTheirBorrowCounts() {
+        when(bookTransactionHistoryRepository.countBorrowsByBook())
+                .thenReturn(List.of(new BookBorrowCount(2, 5)));
+        when(bookRepository.findSearchDocumentsAfter(eq(0), any(Pageable.class)))
+                .thenReturn(List.of(document(1, "Dom Casmurro", "Machado de Assis"),
+                        document(2, "Dom Quixote", "Miguel de Cervantes")));
+
+        bookSuggestionIndex.rebuild();
+
+        assertThat(texts("dom")).containsExactly("Dom Quixote", "Dom Casmurro");
+        assertThat(bookSuggestionIndex.suggest("dom", 1)).hasSize(1);
+        assertThat(bookSuggestionIndex.suggest("dom", 100)).hasSize(2);
+    }
+
+    private List<String> texts(String prefix) {
+        return bookSuggestionIndex.suggest(prefix, BookSuggestionIndex.MAX_SUGGESTIONS).stream()
+                .map(BookSuggestionResponse::text)
+                .toList();
+    }
+
+    private static BookSearchDocument document(int id, String title, String authorName) {
+        return new BookSearchDocument(id, 1, title, authorName, null, null, false, true);
+    }
+}
@@ -0,0 +1,55 @@
+package com.univesp.library_system.service.serviceimpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvUtilsTest {
+
+    @Test
+    void quotedFieldsKeepSeparatorsQuotesAndLineBreaks() throws IOException {
+        StringReader reader = new StringReader(
+                "\"Dom Casmurro, 2a ed.\",\"Machado \"\"Bruxo\"\" de Assis\",\"Linha 1\nLinha 2\r\nLinha 3\",true\r\n"
+                        + "plain,,last\n");
+
+        assertThat(CsvUtils.readRecord(reader)).containsExactly(
+                "Dom Casmurro, 2a ed.", "Machado \"Bruxo\" de Assis", "Linha 1\nLinha 2\r\nLinha 3", "true");
+        assertThat(CsvUtils.readRecord(reader)).containsExactly("plain", "", "last");
+        assertThat(CsvUtils.readRecord(reader)).isNull();
+    }
+
+    @Test
+    void lastRecordWithoutLineBreakAndBlankLines() throws IOException {
+        StringReader reader = new StringReader("a,b\n\r\nc,\"d\"");
+
+        assertThat(CsvUtils.readRecord(reader)).containsExactly("a", "b");
+        List<String> blank = CsvUtils.readRecord(reader);
+        assertThat(CsvUtils.isBlank(blank)).isTrue();
+        assertThat(CsvUtils.readRecord(reader)).containsExactly("c", "d");
+        assertThat(CsvUtils.readRecord(reader)).isNull();
+    }
+
+    @Test
+    void unterminatedQuoteFails() {
+        StringReader reader = new StringReader("\"never closed,x\n");
+
+        assertThatThrownBy(() -> CsvUtils.readRecord(reader)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void writtenRecordsReadBackUnchanged() throws IOException {
+        List<String> fields = Arrays.asList("Grande Sertão, Veredas", "Diz \"nonada\"", "duas\nlinhas", "simples", "");
+        StringWriter writer = new StringWriter();
+
+        CsvUtils.writeRecord(writer, fields);
+
+        assertThat(CsvUtils.readRecord(new StringReader(writer.toString()))).isEqualTo(fields);
+    }
+}